@@ -0,0 +1,122 @@
+package com.roommate.manager.config;
+
+import com.roommate.manager.model.BudgetModel;
+import com.roommate.manager.model.LifestyleModel;
+import com.roommate.manager.model.dto.MatchResult;
+import com.roommate.manager.model.dto.PublicProfile;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Serialization for matching results (HTTP side - Spring MVC uses Jackson 3 here;
+ * the Jackson 2 annotations on the Kafka events are unrelated)
+ *
+ * - Hand-written serializers for the hot match DTOs, registered once at startup
+ *   instead of being introspected per type
+ * - Optional CBOR responses: clients sending "Accept: application/cbor" get a binary body,
+ *   everyone else keeps getting JSON
+ */
+@Configuration
+public class MatchSerializationConfig {
+
+    /**
+     * Picked up by Spring Boot and registered on the application's JSON mapper
+     */
+    @Bean
+    public JacksonModule matchingJacksonModule() {
+        return buildMatchingModule();
+    }
+
+    /**
+     * Added to the MVC converter list by Spring Boot; only used when the client asks for CBOR
+     */
+    @Bean
+    public JacksonCborHttpMessageConverter cborHttpMessageConverter() {
+        CBORMapper mapper = CBORMapper.builder()
+            .addModule(buildMatchingModule())
+            .build();
+        return new JacksonCborHttpMessageConverter(mapper);
+    }
+
+    private static SimpleModule buildMatchingModule() {
+        SimpleModule module = new SimpleModule("matching-results");
+        module.addSerializer(MatchResult.class, new MatchResultSerializer());
+        module.addSerializer(PublicProfile.class, new PublicProfileSerializer());
+        return module;
+    }
+
+    static class MatchResultSerializer extends ValueSerializer<MatchResult> {
+        private final PublicProfileSerializer profileSerializer = new PublicProfileSerializer();
+
+        @Override
+        public void serialize(MatchResult match, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartObject();
+            gen.writeStringProperty("userId", match.userId());
+            gen.writeName("user");
+            if (match.user() == null) {
+                gen.writeNull();
+            } else {
+                profileSerializer.serialize(match.user(), gen, ctxt);
+            }
+            gen.writeNumberProperty("forwardScore", match.forwardScore());
+            gen.writeNumberProperty("reverseScore", match.reverseScore());
+            gen.writeNumberProperty("mutualScore", match.mutualScore());
+            gen.writeNumberProperty("attributeScore", match.attributeScore());
+            gen.writeNumberProperty("embeddingScore", match.embeddingScore());
+            if (match.description() != null) {
+                gen.writeStringProperty("description", match.description());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static class PublicProfileSerializer extends ValueSerializer<PublicProfile> {
+
+        @Override
+        public void serialize(PublicProfile profile, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartObject();
+            gen.writeStringProperty("id", profile.id());
+            gen.writeStringProperty("firstName", profile.firstName());
+            gen.writeStringProperty("lastName", profile.lastName());
+            gen.writeStringProperty("dateOfBirth", profile.dateOfBirth() != null ? profile.dateOfBirth().toString() : null);
+            gen.writeStringProperty("gender", profile.gender());
+            gen.writeStringProperty("profileImageUrl", profile.profileImageUrl());
+            gen.writeStringProperty("zipCode", profile.zipCode());
+            gen.writeStringProperty("moreAboutMe", profile.moreAboutMe());
+
+            BudgetModel budget = profile.budget();
+            if (budget == null) {
+                gen.writeNullProperty("budget");
+            } else {
+                gen.writeName("budget");
+                gen.writeStartObject();
+                gen.writeNumberProperty("min", budget.getMin());
+                gen.writeNumberProperty("max", budget.getMax());
+                gen.writeEndObject();
+            }
+
+            LifestyleModel lifestyle = profile.lifestyle();
+            if (lifestyle == null) {
+                gen.writeNullProperty("lifestyle");
+            } else {
+                gen.writeName("lifestyle");
+                gen.writeStartObject();
+                gen.writeBooleanProperty("petFriendly", lifestyle.getPetFriendly());
+                gen.writeBooleanProperty("smoking", lifestyle.getSmoking());
+                gen.writeStringProperty("guestFrequency", lifestyle.getGuestFrequency());
+                gen.writeBooleanProperty("nightOwl", lifestyle.getNightOwl());
+                gen.writeEndObject();
+            }
+
+            gen.writeStringProperty("lastUpdatedAt", profile.lastUpdatedAt() != null ? profile.lastUpdatedAt().toString() : null);
+            gen.writeEndObject();
+        }
+    }
+}
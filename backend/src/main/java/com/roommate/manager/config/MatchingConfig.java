@@ -0,0 +1,43 @@
+package com.roommate.manager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class MatchingConfig {
+
+    /**
+     * Background workers that recompute materialized match lists
+     * Kept small on purpose - every refresh fans out into ~150 Vertex AI calls
+     */
+    @Bean(name = "matchRefreshExecutor")
+    public ThreadPoolTaskExecutor matchRefreshExecutor(
+            @Value("${matching.materialized.refresh-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("match-refresh-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers that run matching for the streaming (SSE) endpoints
+     * The request thread returns immediately; matches are pushed from here as they are scored
+     */
+    @Bean(name = "matchStreamExecutor")
+    public ThreadPoolTaskExecutor matchStreamExecutor(
+            @Value("${matching.stream.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("match-stream-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,197 @@
+package com.roommate.manager.config;
+
+import com.roommate.manager.model.ConversationModel;
+import com.roommate.manager.model.InboxEntryModel;
+import com.roommate.manager.model.LikeModel;
+import com.roommate.manager.model.MessageModel;
+import com.roommate.manager.model.UnreadTotalModel;
+import com.roommate.manager.model.UserMatchesModel;
+import com.roommate.manager.model.UserModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Creates every index the repositories rely on and checks that the hot queries use them
+ *
+ * Spring Data doesn't create @Indexed/@CompoundIndex indexes unless auto-index-creation is on,
+ * so they are resolved from the model annotations and created here on startup.
+ * Each hot query is then explained - a COLLSCAN in its winning plan is logged, or (with
+ * mongo.index-bootstrap.on-collscan=refuse) fails startup so the app never reports ready.
+ *
+ * Runs as an ApplicationRunner: before ApplicationReadyEvent (the inbox / unread backfills can rely
+ * on the indexes) and before Spring Boot publishes ACCEPTING_TRAFFIC, which would override a
+ * readiness change made from a ready listener.
+ */
+@Component
+public class MongoIndexBootstrapper implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexBootstrapper.class);
+
+    // Every @Document class - add new collections here so their indexes are created
+    private static final List<Class<?>> DOCUMENT_CLASSES = List.of(
+        UserModel.class,
+        UserMatchesModel.class,
+        LikeModel.class,
+        ConversationModel.class,
+        MessageModel.class,
+        InboxEntryModel.class,
+        UnreadTotalModel.class
+    );
+
+    // Placeholder filter value - explain only needs the query shape
+    private static final String PROBE = "__index_probe__";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.index-bootstrap.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mongo.index-bootstrap.on-collscan:warn}")
+    private String onCollscan;
+
+    /**
+     * A query the app runs on a hot path, in the shape the repository sends it
+     */
+    private record HotQuery(String name, String collection, Document filter, Document sort) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        ensureIndexes();
+
+        List<String> collscans = findCollectionScans();
+        if (collscans.isEmpty()) {
+            log.info("✅ Index check passed - all hot queries are index-backed");
+            return;
+        }
+
+        log.warn("⚠️ Hot queries doing a collection scan: {}", String.join(", ", collscans));
+        if ("refuse".equalsIgnoreCase(onCollscan)) {
+            throw new IllegalStateException("Hot queries doing a collection scan: " + String.join(", ", collscans) +
+                " (mongo.index-bootstrap.on-collscan=refuse)");
+        }
+    }
+
+    /**
+     * Create the indexes declared on the model classes (creating an existing index is a no-op)
+     */
+    private void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> documentClass : DOCUMENT_CLASSES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(documentClass);
+            resolver.resolveIndexFor(documentClass).forEach(index -> {
+                try {
+                    indexOps.createIndex(index);
+                } catch (Exception e) {
+                    // e.g. existing duplicates block a unique index - the explain check below will report the gap
+                    log.error("❌ Failed to create index {} on {}: {}", index.getIndexOptions().get("name"),
+                        mongoTemplate.getCollectionName(documentClass), e.getMessage());
+                }
+            });
+        }
+    }
+
+    private List<HotQuery> hotQueries() {
+        String users = mongoTemplate.getCollectionName(UserModel.class);
+        String userMatches = mongoTemplate.getCollectionName(UserMatchesModel.class);
+        String likes = mongoTemplate.getCollectionName(LikeModel.class);
+        String conversations = mongoTemplate.getCollectionName(ConversationModel.class);
+        String messages = mongoTemplate.getCollectionName(MessageModel.class);
+        String inbox = mongoTemplate.getCollectionName(InboxEntryModel.class);
+
+        return List.of(
+            new HotQuery("UserRepository.findByEmail", users,
+                new Document("email", PROBE), null),
+            new HotQuery("VectorSearchService.candidateQuery", users,
+                new Document("cityCode", PROBE).append("gender", PROBE), null),
+            new HotQuery("LikeRepository.findByFromUserId", likes,
+                new Document("fromUserId", PROBE), null),
+            new HotQuery("LikeRepository.findByToUserId", likes,
+                new Document("toUserId", PROBE), null),
+            new HotQuery("LikeRepository.findByFromUserIdAndToUserId", likes,
+                new Document("fromUserId", PROBE).append("toUserId", PROBE), null),
+            new HotQuery("ConversationRepository.findByUserId", conversations,
+                new Document("$or", List.of(new Document("user1Id", PROBE), new Document("user2Id", PROBE))), null),
+            new HotQuery("ConversationRepository.findByUser1IdAndUser2Id", conversations,
+                new Document("user1Id", PROBE).append("user2Id", PROBE), null),
+            new HotQuery("ChatService.getHistoryPage", messages,
+                new Document("conversationId", PROBE).append("timestamp", new Document("$lt", new Date())),
+                new Document("timestamp", -1).append("_id", -1)),
+            new HotQuery("InboxService.getPage", inbox,
+                new Document("userId", PROBE), new Document("lastMessageTimestamp", -1).append("_id", -1)),
+            new HotQuery("MessageRepository.countUnreadMessages", messages,
+                new Document("conversationId", PROBE).append("recipientId", PROBE).append("isRead", false), null),
+            new HotQuery("MatchMaterializationService.dependents", userMatches,
+                new Document("matches.candidateUserId", PROBE), null),
+            new HotQuery("MatchMaterializationService.staleSweep", userMatches,
+                new Document("computedAt", new Document("$lt", new Date())), new Document("computedAt", 1))
+        );
+    }
+
+    /**
+     * @return Names of the hot queries whose winning plan contains a COLLSCAN
+     */
+    private List<String> findCollectionScans() {
+        List<String> collscans = new ArrayList<>();
+        for (HotQuery query : hotQueries()) {
+            try {
+                Document find = new Document("find", query.collection()).append("filter", query.filter());
+                if (query.sort() != null) {
+                    find.append("sort", query.sort());
+                }
+                Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", find).append("verbosity", "queryPlanner"));
+
+                Document queryPlanner = explain.get("queryPlanner", Document.class);
+                if (queryPlanner != null && containsCollscan(queryPlanner.get("winningPlan"))) {
+                    collscans.add(query.name());
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Could not explain {}: {}", query.name(), e.getMessage());
+            }
+        }
+        return collscans;
+    }
+
+    /**
+     * Walk a plan tree (inputStage / inputStages, or the classic plan under queryPlan) looking for COLLSCAN
+     */
+    private static boolean containsCollscan(Object plan) {
+        if (plan instanceof Document stage) {
+            if ("COLLSCAN".equals(stage.getString("stage"))) {
+                return true;
+            }
+            return containsCollscan(stage.get("queryPlan"))
+                || containsCollscan(stage.get("inputStage"))
+                || containsCollscan(stage.get("inputStages"));
+        }
+        if (plan instanceof List<?> stages) {
+            for (Object stage : stages) {
+                if (containsCollscan(stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package com.roommate.manager.config;
+
+import com.roommate.manager.metrics.MongoCommandMetrics;
+import com.roommate.manager.metrics.RepositoryMethodTracker;
+import com.roommate.manager.repository.ConversationRepository;
+import com.roommate.manager.repository.LikeRepository;
+import com.roommate.manager.repository.MessageRepository;
+import com.roommate.manager.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.util.Set;
+
+/**
+ * Wires MongoCommandMetrics into the Mongo client and tags the hot repositories' calls
+ * Metrics are scraped from /actuator/prometheus
+ */
+@Configuration
+public class MongoMetricsConfig {
+
+    // Repositories whose methods get their own repository_method tag
+    private static final Set<Class<?>> TRACKED_REPOSITORIES = Set.of(
+        UserRepository.class,
+        LikeRepository.class,
+        MessageRepository.class,
+        ConversationRepository.class
+    );
+
+    @Bean
+    public MongoCommandMetrics mongoCommandMetrics(MeterRegistry registry,
+                                                   @Value("${mongo.metrics.slow-query-ms:100}") long slowQueryMs) {
+        return new MongoCommandMetrics(registry, slowQueryMs);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoMetricsCustomizer(MongoCommandMetrics mongoCommandMetrics) {
+        return builder -> builder
+            .addCommandListener(mongoCommandMetrics)
+            .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(mongoCommandMetrics));
+    }
+
+    /**
+     * Adds a RepositoryMethodTracker to the proxy of each tracked repository
+     * Static so it is registered before the repository factory beans are initialized
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMethodTrackerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                            Class<?> repositoryInterface = repositoryInformation.getRepositoryInterface();
+                            if (TRACKED_REPOSITORIES.contains(repositoryInterface)) {
+                                proxyFactory.addAdvice(new RepositoryMethodTracker(repositoryInterface.getSimpleName()));
+                            }
+                        }));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.roommate.manager.config;
+
+import com.roommate.manager.model.UserModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the derived location fields (cityCode, zipNumber) of users in sync with zipCode,
+ * and stamps lastUpdatedAt on every save
+ */
+@Configuration
+public class UserLocationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(UserLocationConfig.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${matching.location-backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    /**
+     * Recompute the derived fields on every save, whatever path set the zip code
+     * lastUpdatedAt is set here rather than trusted from the request body: clients PUT the whole
+     * user back with the stored value, and PairwiseScoreCache uses it as the profile version
+     */
+    @Bean
+    public BeforeConvertCallback<UserModel> userLocationCallback() {
+        return (user, collection) -> {
+            user.refreshLocation();
+            user.markUpdated(LocalDateTime.now());
+            return user;
+        };
+    }
+
+    /**
+     * One-time backfill for users saved before cityCode/zipNumber existed
+     * Runs server-side as update pipelines - no documents are loaded into the app
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLocationFields() {
+        if (!backfillEnabled) {
+            return;
+        }
+
+        try {
+            Query missingCityCode = new Query(Criteria.where("cityCode").exists(false).and("zipCode").regex("^.{3}"));
+            long cityCodes = mongoTemplate.updateMulti(missingCityCode,
+                AggregationUpdate.update()
+                    .set("cityCode").toValue(StringOperators.valueOf("zipCode").substringCP(0, 3)),
+                UserModel.class).getModifiedCount();
+
+            Query missingZipNumber = new Query(Criteria.where("zipNumber").exists(false).and("zipCode").regex("^[0-9]{5}"));
+            long zipNumbers = mongoTemplate.updateMulti(missingZipNumber,
+                AggregationUpdate.update()
+                    .set("zipNumber").toValue(ConvertOperators.valueOf(
+                        StringOperators.valueOf("zipCode").substringCP(0, 5)).convertToInt()),
+                UserModel.class).getModifiedCount();
+
+            if (cityCodes > 0 || zipNumbers > 0) {
+                log.info("📍 Backfilled location fields: {} city codes, {} zip numbers", cityCodes, zipNumbers);
+            }
+        } catch (Exception e) {
+            // Getters fall back to deriving from zipCode, so matching still works - only index use is lost
+            log.warn("⚠️ Location backfill failed: {}", e.getMessage());
+        }
+    }
+}
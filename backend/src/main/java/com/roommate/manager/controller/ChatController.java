@@ -1,25 +1,34 @@
 package com.roommate.manager.controller;
 
+import com.roommate.manager.kafka.ChatDeliveryTrace;
 import com.roommate.manager.kafka.KafkaProducerService;
-import com.roommate.manager.model.ConversationModel;
+import com.roommate.manager.metrics.ChatDeliveryMetrics;
 import com.roommate.manager.model.MessageModel;
+import com.roommate.manager.model.dto.ConversationSummary;
 import com.roommate.manager.model.events.MessageEvent;
 import com.roommate.manager.model.events.MessageReadEvent;
 import com.roommate.manager.model.events.MessageDeleteEvent;
-import com.roommate.manager.repository.ConversationRepository;
 import com.roommate.manager.repository.MessageRepository;
 import com.roommate.manager.service.ChatService;
+import com.roommate.manager.service.InboxService;
+import com.roommate.manager.service.RecentMessageCache;
+import com.roommate.manager.service.UnreadTotalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/chat")
 public class ChatController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final int MAX_CONVERSATION_PAGE_SIZE = 100;
+
     @Autowired
     private ChatService chatService;
 
@@ -27,18 +36,34 @@ public class ChatController {
     private MessageRepository messageRepository;
 
     @Autowired
-    private ConversationRepository conversationRepository;
+    private KafkaProducerService kafkaProducerService;
 
     @Autowired
-    private KafkaProducerService kafkaProducerService;
+    private ChatDeliveryMetrics chatDeliveryMetrics;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private UnreadTotalService unreadTotalService;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
 
     /**
      * Send a message
      * POST /api/chat/send
      * Body: { "senderId": "user123", "recipientId": "user456", "content": "Hello!" }
+     * Optional header X-Correlation-Id (generated when absent, echoed as correlationId)
      */
     @PostMapping("/send")
-    public ResponseEntity<Map<String, Object>> sendMessage(@RequestBody Map<String, String> request) {
+    public ResponseEntity<Map<String, Object>> sendMessage(
+            @RequestBody Map<String, String> request,
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationIdHeader) {
+        long receivedAt = System.currentTimeMillis();
+        String correlationId = correlationIdHeader != null && !correlationIdHeader.isBlank()
+                ? correlationIdHeader
+                : UUID.randomUUID().toString();
         try {
             String senderId = request.get("senderId");
             String recipientId = request.get("recipientId");
@@ -61,20 +86,23 @@ public class ChatController {
                 ));
             }
 
-            // Get or create conversation
-            ConversationModel conversation = chatService.getOrCreateConversation(senderId, recipientId);
+            // Conversation ID is deterministic; the conversation itself is upserted with the message
+            String conversationId = chatService.generateConversationId(senderId, recipientId);
 
             // Create message
             MessageModel message = new MessageModel();
-            message.setConversationId(conversation.getId());
+            message.setConversationId(conversationId);
             message.setSenderId(senderId);
             message.setRecipientId(recipientId);
             message.setContent(content);
             message.setTimestamp(LocalDateTime.now());
             message.setRead(false);
 
-            // Save message (also updates conversation)
-            MessageModel savedMessage = chatService.saveMessage(message);
+            // Save message (also creates / updates conversation)
+            ChatService.SentMessage sent = chatService.saveMessage(message);
+            MessageModel savedMessage = sent.message();
+            long persistedAt = System.currentTimeMillis();
+            chatDeliveryMetrics.recordHop(ChatDeliveryMetrics.PERSIST, receivedAt, persistedAt);
 
             // Publish to Kafka
             MessageEvent event = new MessageEvent();
@@ -84,13 +112,16 @@ public class ChatController {
             event.setRecipientId(savedMessage.getRecipientId());
             event.setContent(savedMessage.getContent());
             event.setTimestamp(savedMessage.getTimestamp());
+            event.setRecipientUnreadTotal(sent.recipientUnreadTotal().total());
+            event.setRecipientUnreadSeq(sent.recipientUnreadTotal().seq());
 
-            kafkaProducerService.sendChatMessage(event);
+            kafkaProducerService.sendChatMessage(event, ChatDeliveryTrace.received(correlationId, receivedAt, persistedAt));
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", savedMessage,
-                    "conversationId", conversation.getId()
+                    "conversationId", conversationId,
+                    "correlationId", correlationId
             ));
 
         } catch (Exception e) {
@@ -99,20 +130,32 @@ public class ChatController {
     }
 
     /**
-     * Get message history for a conversation
-     * GET /api/chat/history/{conversationId}
+     * Get message history for a conversation, newest page first
+     * GET /api/chat/history/{conversationId}?limit=50&before=...
+     * Messages within a page are oldest first; pass the returned "before" cursor to load the previous page
+     * ("before" is null once the start of the conversation is reached)
      */
     @GetMapping("/history/{conversationId}")
-    public ResponseEntity<Map<String, Object>> getHistory(@PathVariable String conversationId) {
+    public ResponseEntity<Map<String, Object>> getHistory(
+            @PathVariable String conversationId,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String before) {
         try {
-            List<MessageModel> messages = messageRepository.findByConversationIdOrderByTimestampAsc(conversationId);
-
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "messages", messages,
-                    "count", messages.size()
-            ));
-
+            int size = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+            ChatService.HistoryPage page = chatService.getHistoryPage(
+                    conversationId, before == null || before.isBlank() ? null : before, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("conversationId", conversationId);
+            response.put("messages", page.messages());
+            response.put("count", page.messages().size());
+            response.put("before", page.before());
+            response.put("hasMore", page.before() != null);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor", "message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch history", "message", e.getMessage()));
         }
@@ -121,7 +164,7 @@ public class ChatController {
     /**
      * Mark messages as read
      * POST /api/chat/read
-     * Body: { "messageIds": ["msg1", "msg2"], "userId": "user123" }
+     * Body: { "messageIds": ["msg1", "msg2"], "userId": "user123", "conversationId": "optional" }
      */
     @PostMapping("/read")
     public ResponseEntity<Map<String, Object>> markAsRead(@RequestBody Map<String, Object> request) {
@@ -129,28 +172,83 @@ public class ChatController {
             @SuppressWarnings("unchecked")
             List<String> messageIds = (List<String>) request.get("messageIds");
             String userId = (String) request.get("userId");
+            String conversationId = (String) request.get("conversationId");
 
             if (messageIds == null || messageIds.isEmpty() || userId == null) {
                 return ResponseEntity.badRequest().body(Map.of("error", "messageIds and userId are required"));
             }
 
             // Mark messages as read
-            List<MessageModel> updatedMessages = chatService.markMessagesAsRead(messageIds, userId);
+            ChatService.ReadResult result = chatService.markMessagesAsRead(conversationId, messageIds, userId);
 
             // Publish read receipt event
-            if (!updatedMessages.isEmpty()) {
+            if (result.markedCount() > 0) {
                 MessageReadEvent event = new MessageReadEvent();
                 event.setMessageIds(messageIds);
-                event.setConversationId(updatedMessages.get(0).getConversationId());
+                event.setConversationId(result.conversationId());
+                event.setUserId(userId);
+                event.setSenderId(result.senderId());
+                event.setUnreadTotal(result.unreadTotal().total());
+                event.setUnreadSeq(result.unreadTotal().seq());
+                event.setReadAt(result.readAt());
+
+                kafkaProducerService.sendMessageReadReceipt(event);
+            }
+
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "updatedCount", result.markedCount()
+            ));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to mark as read", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Mark everything the user received in a conversation as read, up to a timestamp
+     * POST /api/chat/read/all
+     * Body: { "conversationId": "user123_user456", "userId": "user123", "upTo": "2025-01-01T12:00:00.000Z" }
+     * upTo is optional and defaults to now
+     */
+    @PostMapping("/read/all")
+    public ResponseEntity<Map<String, Object>> markAllAsRead(@RequestBody Map<String, String> request) {
+        try {
+            String conversationId = request.get("conversationId");
+            String userId = request.get("userId");
+            String upToParam = request.get("upTo");
+
+            if (conversationId == null || userId == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "conversationId and userId are required"));
+            }
+
+            LocalDateTime upTo;
+            try {
+                // Same wire format as message timestamps (UTC, trailing Z)
+                upTo = upToParam == null ? LocalDateTime.now() : OffsetDateTime.parse(upToParam).toLocalDateTime();
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "upTo must be an ISO-8601 timestamp"));
+            }
+
+            ChatService.ReadResult result = chatService.markConversationReadUpTo(conversationId, userId, upTo);
+
+            if (result.markedCount() > 0) {
+                MessageReadEvent event = new MessageReadEvent();
+                event.setMessageIds(List.of());
+                event.setConversationId(conversationId);
                 event.setUserId(userId);
-                event.setReadAt(LocalDateTime.now());
+                event.setSenderId(result.senderId());
+                event.setUpTo(upTo);
+                event.setUnreadTotal(result.unreadTotal().total());
+                event.setUnreadSeq(result.unreadTotal().seq());
+                event.setReadAt(result.readAt());
 
                 kafkaProducerService.sendMessageReadReceipt(event);
             }
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "updatedCount", updatedMessages.size()
+                    "updatedCount", result.markedCount()
             ));
 
         } catch (Exception e) {
@@ -184,6 +282,7 @@ public class ChatController {
 
             // Delete the message
             messageRepository.deleteById(messageId);
+            recentMessageCache.remove(message.getConversationId(), messageId);
 
             // Publish deletion event for real-time updates
             MessageDeleteEvent event = new MessageDeleteEvent();
@@ -205,27 +304,35 @@ public class ChatController {
     }
 
     /**
-     * Get all conversations for a user
-     * GET /api/chat/conversations/{userId}
+     * Get a user's conversations, most recent first
+     * GET /api/chat/conversations/{userId}?limit=20&before=...
+     * Pass the returned "before" cursor to load the next page ("before" is null on the last page)
+     * Entries keep the ConversationModel shape (id = conversationId, user1Id / user2Id, lastMessage*, unreadCounts)
      */
     @GetMapping("/conversations/{userId}")
-    public ResponseEntity<Map<String, Object>> getConversations(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getConversations(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String before) {
         try {
-            List<ConversationModel> conversations = conversationRepository.findByUserId(userId);
-
-            // Sort by last message timestamp (most recent first)
-            conversations.sort((a, b) -> {
-                if (a.getLastMessageTimestamp() == null) return 1;
-                if (b.getLastMessageTimestamp() == null) return -1;
-                return b.getLastMessageTimestamp().compareTo(a.getLastMessageTimestamp());
-            });
-
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "conversations", conversations,
-                    "count", conversations.size()
-            ));
-
+            int size = Math.max(1, Math.min(limit, MAX_CONVERSATION_PAGE_SIZE));
+            InboxService.InboxPage page = inboxService.getPage(
+                    userId, before == null || before.isBlank() ? null : before, size);
+
+            List<ConversationSummary> conversations = page.conversations().stream()
+                    .map(ConversationSummary::from)
+                    .toList();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("conversations", conversations);
+            response.put("count", conversations.size());
+            response.put("before", page.before());
+            response.put("hasMore", page.before() != null);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor", "message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch conversations", "message", e.getMessage()));
         }
@@ -234,13 +341,14 @@ public class ChatController {
     /**
      * Get unread counts for all conversations of a user
      * GET /api/chat/unread/{userId}
+     * Clients connected to /api/chat/stream/{userId} get totalUnread pushed as "unread-total" events instead
      */
     @GetMapping("/unread/{userId}")
     public ResponseEntity<Map<String, Object>> getUnreadCounts(@PathVariable String userId) {
         try {
             Map<String, Integer> unreadCounts = chatService.getUnreadCountsByConversation(userId);
 
-            int totalUnread = unreadCounts.values().stream().mapToInt(Integer::intValue).sum();
+            long totalUnread = unreadTotalService.get(userId);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
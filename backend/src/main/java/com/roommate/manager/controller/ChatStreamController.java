@@ -1,5 +1,10 @@
 package com.roommate.manager.controller;
 
+import com.roommate.manager.jfr.SseFanOutEvent;
+import com.roommate.manager.service.UnreadTotalService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +21,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @CrossOrigin(originPatterns = "*", allowCredentials = "false")
 public class ChatStreamController {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatStreamController.class);
+
+    @Autowired
+    private UnreadTotalService unreadTotalService;
+
     // Map of userId -> list of SSE emitters for that user
     private final ConcurrentHashMap<String, CopyOnWriteArrayList<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
 
@@ -29,37 +39,52 @@ public class ChatStreamController {
 
         // Add emitter to user's list
         userEmitters.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-        System.out.println("✅ Chat SSE client connected for user: " + userId + ". Total connections: " + getTotalConnections());
+        log.info("✅ Chat SSE client connected for user: {}. Total connections: {}", userId, getTotalConnections());
 
         emitter.onCompletion(() -> {
             removeEmitter(userId, emitter);
-            System.out.println("🔌 Chat SSE client disconnected (completion) for user: " + userId + ". Total: " + getTotalConnections());
+            log.info("🔌 Chat SSE client disconnected (completion) for user: {}. Total: {}", userId, getTotalConnections());
         });
         emitter.onTimeout(() -> {
             removeEmitter(userId, emitter);
-            System.out.println("⏰ Chat SSE client disconnected (timeout) for user: " + userId + ". Total: " + getTotalConnections());
+            log.info("⏰ Chat SSE client disconnected (timeout) for user: {}. Total: {}", userId, getTotalConnections());
         });
         emitter.onError((e) -> {
             removeEmitter(userId, emitter);
-            System.out.println("❌ Chat SSE client disconnected (error) for user: " + userId + ": " + e.getMessage() + ". Total: " + getTotalConnections());
+            log.info("❌ Chat SSE client disconnected (error) for user: {}: {}. Total: {}", userId, e.getMessage(), getTotalConnections());
         });
 
+        // Current unread total up front; later changes arrive as they happen
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("unread-total")
+                    .data(unreadTotalData(userId, unreadTotalService.get(userId))));
+        } catch (IOException | IllegalStateException e) {
+            removeEmitter(userId, emitter);
+            log.warn("⚠️ Failed to send initial unread total to user {}: {}", userId, e.getMessage());
+        }
+
         return emitter;
     }
 
     /**
      * Broadcast new message to specific user (recipient)
+     * @return Number of connections the message was delivered to (0 when the recipient is offline)
      */
-    public void broadcastNewMessage(String recipientId, Map<String, Object> messageData) {
+    public int broadcastNewMessage(String recipientId, Map<String, Object> messageData) {
         CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(recipientId);
         if (emitters == null || emitters.isEmpty()) {
-            System.out.println("📭 No active SSE connections for user: " + recipientId);
-            return;
+            log.debug("📭 No active SSE connections for user: {}", recipientId);
+            return 0;
         }
 
-        System.out.println("📢 Broadcasting new message to user " + recipientId + " (" + emitters.size() + " connections)");
+        log.debug("📢 Broadcasting new message to user {} ({} connections)", recipientId, emitters.size());
 
-        sendToEmitters(emitters, "new-message", messageData, recipientId);
+        SseFanOutEvent fanOut = SseFanOutEvent.start(SseFanOutEvent.CHAT, "new-message");
+        int connections = emitters.size();
+        int delivered = sendToEmitters(emitters, "new-message", messageData, recipientId);
+        fanOut.finish(1, connections, delivered);
+        return delivered;
     }
 
     /**
@@ -68,22 +93,43 @@ public class ChatStreamController {
     public void broadcastReadReceipt(String senderId, Map<String, Object> readReceiptData) {
         CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(senderId);
         if (emitters == null || emitters.isEmpty()) {
-            System.out.println("📭 No active SSE connections for user: " + senderId);
+            log.debug("📭 No active SSE connections for user: {}", senderId);
             return;
         }
 
-        System.out.println("📢 Broadcasting read receipt to user " + senderId + " (" + emitters.size() + " connections)");
+        log.debug("📢 Broadcasting read receipt to user {} ({} connections)", senderId, emitters.size());
 
-        sendToEmitters(emitters, "message-read", readReceiptData, senderId);
+        SseFanOutEvent fanOut = SseFanOutEvent.start(SseFanOutEvent.CHAT, "message-read");
+        int connections = emitters.size();
+        int delivered = sendToEmitters(emitters, "message-read", readReceiptData, senderId);
+        fanOut.finish(1, connections, delivered);
+    }
+
+    /**
+     * Push a user's new total unread count to all of their connections
+     */
+    public void broadcastUnreadTotal(String userId, long total) {
+        CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(userId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+
+        SseFanOutEvent fanOut = SseFanOutEvent.start(SseFanOutEvent.CHAT, "unread-total");
+        int connections = emitters.size();
+        int delivered = sendToEmitters(emitters, "unread-total", unreadTotalData(userId, total), userId);
+        fanOut.finish(1, connections, delivered);
     }
 
     /**
      * Broadcast message deletion to ALL users (they filter by conversationId on frontend)
      */
     public void broadcastMessageDeleted(String conversationId, Map<String, Object> deletionData) {
-        System.out.println("📢 Broadcasting message deletion for conversation " + conversationId);
+        log.debug("📢 Broadcasting message deletion for conversation {}", conversationId);
 
+        SseFanOutEvent fanOut = SseFanOutEvent.start(SseFanOutEvent.CHAT, "message-deleted");
+        int users = 0;
         int totalSent = 0;
+        int delivered = 0;
 
         // Broadcast to all connected users (they'll filter by conversationId on frontend)
         for (Map.Entry<String, CopyOnWriteArrayList<SseEmitter>> entry : userEmitters.entrySet()) {
@@ -91,18 +137,21 @@ public class ChatStreamController {
             CopyOnWriteArrayList<SseEmitter> emitters = entry.getValue();
 
             if (emitters != null && !emitters.isEmpty()) {
-                sendToEmitters(emitters, "message-deleted", deletionData, userId);
+                users++;
                 totalSent += emitters.size();
+                delivered += sendToEmitters(emitters, "message-deleted", deletionData, userId);
             }
         }
+        fanOut.finish(users, totalSent, delivered);
 
-        System.out.println("✉️ Broadcasted message deletion to " + totalSent + " total connections");
+        log.debug("✉️ Broadcasted message deletion to {} total connections", totalSent);
     }
 
     /**
      * Helper method to send events to emitters
+     * @return Number of emitters the event was delivered to
      */
-    private void sendToEmitters(CopyOnWriteArrayList<SseEmitter> emitters, String eventName, Map<String, Object> data, String userId) {
+    private int sendToEmitters(CopyOnWriteArrayList<SseEmitter> emitters, String eventName, Map<String, Object> data, String userId) {
         int successCount = 0;
         CopyOnWriteArrayList<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
 
@@ -115,11 +164,11 @@ public class ChatStreamController {
             } catch (IllegalStateException | IOException e) {
                 deadEmitters.add(emitter);
                 if (!e.getMessage().contains("Broken pipe") && !e.getMessage().contains("Connection reset")) {
-                    System.out.println("⚠️ Failed to send to client: " + e.getMessage());
+                    log.warn("⚠️ Failed to send to client: {}", e.getMessage());
                 }
             } catch (Exception e) {
                 deadEmitters.add(emitter);
-                System.out.println("❌ Unexpected error sending to client: " + e.getMessage());
+                log.warn("❌ Unexpected error sending to client: {}", e.getMessage());
             }
         }
 
@@ -129,12 +178,17 @@ public class ChatStreamController {
             if (emitters.isEmpty()) {
                 userEmitters.remove(userId);
             }
-            System.out.println("🧹 Removed " + deadEmitters.size() + " dead connections for user " + userId);
+            log.debug("🧹 Removed {} dead connections for user {}", deadEmitters.size(), userId);
         }
 
         if (successCount > 0) {
-            System.out.println("✉️ Successfully sent " + eventName + " to " + successCount + " clients");
+            log.debug("✉️ Successfully sent {} to {} clients", eventName, successCount);
         }
+        return successCount;
+    }
+
+    private static Map<String, Object> unreadTotalData(String userId, long total) {
+        return Map.of("userId", userId, "totalUnread", total);
     }
 
     /**
@@ -5,6 +5,8 @@ import com.roommate.manager.repository.UserRepository;
 import com.roommate.manager.service.IndexManagementService;
 import com.roommate.manager.service.EmbeddingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,6 +30,9 @@ public class IndexController {
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     /**
      * Batch upload all existing users to the Vector Search index
      * Example: POST /api/index/batch-upload
@@ -136,14 +141,14 @@ public class IndexController {
                 testUser = userRepository.findById(userId)
                     .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
             } else {
-                List<UserModel> allUsers = userRepository.findAll();
-                if (allUsers.isEmpty()) {
+                // Only one document is needed - don't load the whole collection
+                testUser = mongoTemplate.findOne(new Query().limit(1), UserModel.class);
+                if (testUser == null) {
                     Map<String, Object> errorResponse = new HashMap<>();
                     errorResponse.put("error", "No users in database");
                     errorResponse.put("message", "Please add users first");
                     return ResponseEntity.status(404).body(errorResponse);
                 }
-                testUser = allUsers.get(0); // Use first user
             }
 
             // Generate profile embedding for this user
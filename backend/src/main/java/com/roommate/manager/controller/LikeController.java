@@ -4,6 +4,8 @@ import com.roommate.manager.model.LikeModel;
 import com.roommate.manager.model.UserModel;
 import com.roommate.manager.repository.LikeRepository;
 import com.roommate.manager.repository.UserRepository;
+import com.roommate.manager.service.MatchStateCache;
+import com.roommate.manager.service.UserHydrationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +23,12 @@ public class LikeController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserHydrationService userHydrationService;
+
+    @Autowired
+    private MatchStateCache matchStateCache;
+
     /**
      * Send a like/heart from one user to another
      * POST /api/likes
@@ -48,6 +56,7 @@ public class LikeController {
             // Create and save like
             LikeModel like = new LikeModel(fromUserId, toUserId);
             likeRepository.save(like);
+            matchStateCache.invalidate(fromUserId, toUserId);
 
             // Check if it's a mutual like
             boolean isMutual = likeRepository.existsByFromUserIdAndToUserId(toUserId, fromUserId);
@@ -80,6 +89,7 @@ public class LikeController {
             }
 
             likeRepository.deleteByFromUserIdAndToUserId(fromUserId, toUserId);
+            matchStateCache.invalidate(fromUserId, toUserId);
 
             return ResponseEntity.ok(Map.of("success", true, "message", "Like removed successfully"));
 
@@ -145,7 +155,7 @@ public class LikeController {
             List<LikeModel> sentLikes = likeRepository.findByFromUserId(userId);
             Set<String> likedUserIds = sentLikes.stream()
                     .map(LikeModel::getToUserId)
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
 
             // Get all users who liked this user
             List<LikeModel> receivedLikes = likeRepository.findByToUserId(userId);
@@ -154,14 +164,11 @@ public class LikeController {
                     .collect(Collectors.toSet());
 
             // Find intersection (mutual likes)
-            Set<String> mutualMatchIds = new HashSet<>(likedUserIds);
+            Set<String> mutualMatchIds = new LinkedHashSet<>(likedUserIds);
             mutualMatchIds.retainAll(likerIds);
 
-            // Fetch user details for mutual matches
-            List<UserModel> mutualMatchUsers = new ArrayList<>();
-            for (String matchId : mutualMatchIds) {
-                userRepository.findById(matchId).ifPresent(mutualMatchUsers::add);
-            }
+            // Fetch user details for mutual matches (one query)
+            List<UserModel> mutualMatchUsers = userHydrationService.findAllInOrder(mutualMatchIds);
 
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -214,6 +221,7 @@ public class LikeController {
             // Delete both directions of the like
             likeRepository.deleteByFromUserIdAndToUserId(userId1, userId2);
             likeRepository.deleteByFromUserIdAndToUserId(userId2, userId1);
+            matchStateCache.invalidate(userId1, userId2);
 
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -1,37 +1,110 @@
 package com.roommate.manager.controller;
 
+import com.roommate.manager.model.MatchEntryModel;
+import com.roommate.manager.model.UserMatchesModel;
+import com.roommate.manager.model.UserModel;
+import com.roommate.manager.model.dto.MatchResult;
+import com.roommate.manager.model.dto.PublicProfile;
+import com.roommate.manager.service.MatchFieldSelector;
+import com.roommate.manager.service.MatchMaterializationService;
+import com.roommate.manager.service.MatchProgressListener;
+import com.roommate.manager.service.MatchResultCache;
+import com.roommate.manager.service.MatchSnapshotStore;
 import com.roommate.manager.service.VectorSearchService;
 import com.roommate.manager.service.UltraOptimizedVectorSearchService;
+import com.roommate.manager.service.UserHydrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/matching")
 public class MatchingController {
 
+    private static final Logger log = LoggerFactory.getLogger(MatchingController.class);
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    // Bounds the Vertex AI fan-out of one batch validation
+    private static final int MAX_VALIDATE_BATCH_SIZE = 100;
+
     @Autowired
     private VectorSearchService vectorSearchService;
 
     @Autowired
     private UltraOptimizedVectorSearchService ultraOptimizedVectorSearchService;
 
+    @Autowired
+    private MatchMaterializationService matchMaterializationService;
+
+    @Autowired
+    private MatchResultCache matchResultCache;
+
+    @Autowired
+    private MatchSnapshotStore matchSnapshotStore;
+
+    @Autowired
+    private MatchFieldSelector matchFieldSelector;
+
+    @Autowired
+    private UserHydrationService userHydrationService;
+
+    @Autowired
+    @Qualifier("matchStreamExecutor")
+    private ThreadPoolTaskExecutor matchStreamExecutor;
+
+    @Value("${matching.stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
+
+    @Value("${matching.stream.batch-size:20}")
+    private int streamBatchSize;
+
+    @Value("${matching.stream.batch-max-delay-ms:250}")
+    private long streamBatchMaxDelayMs;
+
     /**
      * Find similar roommates for a given user using AI embeddings
      * ONE-WAY matching: Only checks if others match what this user wants
      * Example: GET /api/matching/similar/user123?topK=10
+     *
+     * All matching endpoints accept ?fields=user,scores,breakdown,description to trim the payload;
+     * descriptions are only computed for the results actually returned
      */
     @GetMapping("/similar/{userId}")
     public ResponseEntity<Map<String, Object>> findSimilarRoommates(
             @PathVariable String userId,
-            @RequestParam(defaultValue = "3") int topK
+            @RequestParam(defaultValue = "3") int topK,
+            @RequestParam(required = false) String fields
     ) {
+        Set<String> selectedFields;
         try {
-            List<Map<String, Object>> matches = vectorSearchService.findSimilarRoommates(userId, topK);
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return invalidFields(e);
+        }
+
+        try {
+            List<Map<String, Object>> matches = matchFieldSelector.selectMaps(
+                vectorSearchService.findSimilarRoommates(userId, topK), selectedFields, true);
 
             Map<String, Object> response = new HashMap<>();
             response.put("userId", userId);
@@ -66,10 +139,24 @@ public class MatchingController {
     @GetMapping("/mutual/{userId}")
     public ResponseEntity<Map<String, Object>> findMutualMatches(
             @PathVariable String userId,
-            @RequestParam(defaultValue = "3") int topK
+            @RequestParam(defaultValue = "3") int topK,
+            @RequestParam(required = false) String fields
     ) {
+        Set<String> selectedFields;
+        try {
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return invalidFields(e);
+        }
+
         try {
-            List<Map<String, Object>> matches = vectorSearchService.findMutualMatches(userId, topK);
+            List<MatchResult> topMatches = vectorSearchService.findMutualMatches(userId, topK).stream()
+                .map(MatchResult::from)
+                .toList();
+            // Descriptions are part of this endpoint's default payload - built for the top K only
+            List<?> matches = selectedFields == null
+                ? matchFieldSelector.withDescriptions(topMatches)
+                : matchFieldSelector.select(topMatches, selectedFields);
 
             Map<String, Object> response = new HashMap<>();
             response.put("userId", userId);
@@ -100,19 +187,35 @@ public class MatchingController {
 
     /**
      * ULTRA-FAST mutual matching using embeddings directly from Vertex AI
-     * Zero AI generation calls - uses pre-stored embeddings from the vector index
-     * Sub-second performance even with 10,000+ users
+     * Served from an in-memory read-through cache backed by the materialized user_matches store -
+     * the ultra-fast engine only runs as a background refresh job (a first visit waits for the first run)
      *
      * Example: GET /api/matching/mutual/ultrafast/user123?topK=10
      */
     @GetMapping("/mutual/ultrafast/{userId}")
     public ResponseEntity<Map<String, Object>> findMutualMatchesUltraFast(
             @PathVariable String userId,
-            @RequestParam(defaultValue = "3") int topK
+            @RequestParam(defaultValue = "3") int topK,
+            @RequestParam(required = false) String fields
     ) {
+        Set<String> selectedFields;
+        try {
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return invalidFields(e);
+        }
+
         try {
             long startTime = System.currentTimeMillis();
-            List<Map<String, Object>> matches = ultraOptimizedVectorSearchService.findMutualMatchesUltraFast(userId, topK);
+            MatchResultCache.CachedMatches cached = matchResultCache.get(userId, topK, bucketSize -> {
+                UserMatchesModel stored = matchMaterializationService.getOrComputeMatches(userId);
+                return new MatchResultCache.CachedMatches(
+                    stored.getVersion(),
+                    stored.getComputedAt(),
+                    matchMaterializationService.hydrateMatches(stored, bucketSize)
+                );
+            });
+            List<?> matches = matchFieldSelector.select(cached.matches().stream().limit(topK).toList(), selectedFields);
             long duration = System.currentTimeMillis() - startTime;
 
             Map<String, Object> response = new HashMap<>();
@@ -120,8 +223,10 @@ public class MatchingController {
             response.put("matchingType", "bidirectional-ultrafast");
             response.put("totalMatches", matches.size());
             response.put("matches", matches);
+            response.put("version", cached.version());
+            response.put("computedAt", cached.computedAt());
             response.put("executionTime_ms", duration);
-            response.put("performanceNote", "Uses embeddings directly from Vertex AI - zero AI generation calls");
+            response.put("performanceNote", "Served from materialized match lists - refreshed in the background from Vertex AI embeddings");
             response.put("scoreExplanation", Map.of(
                 "forwardScore", "How well the match satisfies your preferences",
                 "reverseScore", "How well you satisfy the match's preferences",
@@ -145,6 +250,133 @@ public class MatchingController {
         }
     }
 
+    /**
+     * Cursor-paged view of the ultra-fast ranked match list
+     * The first call (no cursor) pins the user's full ranked list in a short-lived snapshot;
+     * follow nextCursor for later pages, which are sliced from that snapshot without re-matching.
+     * An expired cursor returns 410 - restart from the first page.
+     *
+     * Example: GET /api/matching/mutual/ultrafast/user123/page?pageSize=10&cursor=...
+     */
+    @GetMapping("/mutual/ultrafast/{userId}/page")
+    public ResponseEntity<Map<String, Object>> pageMutualMatchesUltraFast(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields
+    ) {
+        Set<String> selectedFields;
+        try {
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return invalidFields(e);
+        }
+
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        boolean firstPage = cursor == null || cursor.isBlank();
+
+        MatchSnapshotStore.Snapshot snapshot;
+        int offset;
+        try {
+            if (firstPage) {
+                snapshot = matchSnapshotStore.create(userId, matchMaterializationService.getOrComputeMatches(userId));
+                offset = 0;
+            } else {
+                MatchSnapshotStore.Cursor decoded = matchSnapshotStore.decodeCursor(cursor);
+                snapshot = matchSnapshotStore.get(decoded.snapshotId());
+                if (snapshot == null) {
+                    return ResponseEntity.status(410).body(Map.of(
+                        "error", "Cursor expired",
+                        "message", "Match snapshot is no longer available - request the first page again"
+                    ));
+                }
+                if (!snapshot.userId().equals(userId)) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Cursor does not belong to this user"));
+                }
+                offset = decoded.offset();
+            }
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", firstPage ? "User not found" : "Invalid cursor");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(firstPage ? 404 : 400).body(errorResponse);
+
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Ultra-fast matching failed");
+            errorResponse.put("message", e.getMessage());
+            log.error("Match page failed for {} ({})", userId, firstPage ? "first page" : "cursor page", e);
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+
+        List<MatchEntryModel> entries = snapshot.entries();
+        int from = Math.min(offset, entries.size());
+        int to = Math.min(from + size, entries.size());
+        List<?> matches = matchFieldSelector.select(
+            matchMaterializationService.hydrateEntries(entries.subList(from, to)), selectedFields);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", userId);
+        response.put("matchingType", "bidirectional-ultrafast");
+        response.put("matches", matches);
+        response.put("pageSize", size);
+        response.put("offset", from);
+        response.put("totalAvailable", entries.size());
+        response.put("nextCursor", to < entries.size() ? matchSnapshotStore.encodeCursor(snapshot.id(), to) : null);
+        response.put("version", snapshot.version());
+        response.put("computedAt", snapshot.computedAt());
+        response.put("snapshotTtlSeconds", matchSnapshotStore.getTtlSeconds());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streaming variant of /mutual/{userId} (legacy hybrid engine)
+     * Emits a "match" event per candidate as soon as it is scored, then a "summary" event with the
+     * ranked top-K userIds and per-stage timings
+     *
+     * Example: GET /api/matching/mutual/user123/stream?topK=10
+     */
+    @GetMapping(value = "/mutual/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMutualMatches(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "3") int topK,
+            @RequestParam(required = false) String fields
+    ) {
+        return streamMatches(userId, topK, fields, "bidirectional",
+            listener -> vectorSearchService.findMutualMatches(userId, topK, listener));
+    }
+
+    /**
+     * Streaming variant of the ultra-fast engine
+     * Runs a live Vertex AI round (not the materialized list) and pushes matches as stage 4 scores them
+     *
+     * Example: GET /api/matching/mutual/ultrafast/user123/stream?topK=10
+     */
+    @GetMapping(value = "/mutual/ultrafast/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMutualMatchesUltraFast(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "3") int topK,
+            @RequestParam(required = false) String fields
+    ) {
+        return streamMatches(userId, topK, fields, "bidirectional-ultrafast",
+            listener -> ultraOptimizedVectorSearchService.findMutualMatchesUltraFast(userId, topK, listener));
+    }
+
+    /**
+     * Queue a background refresh of a user's materialized match list
+     * Example: POST /api/matching/mutual/refresh/user123
+     */
+    @PostMapping("/mutual/refresh/{userId}")
+    public ResponseEntity<Map<String, Object>> refreshMutualMatches(@PathVariable String userId) {
+        matchMaterializationService.requestRefresh(userId);
+        return ResponseEntity.accepted().body(Map.of(
+            "userId", userId,
+            "message", "Match refresh queued"
+        ));
+    }
+
     /**
      * Search for roommates using natural language query
      * Example: GET /api/matching/search?query=quiet clean early bird&topK=10
@@ -152,10 +384,19 @@ public class MatchingController {
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchByQuery(
             @RequestParam String query,
-            @RequestParam(defaultValue = "10") int topK
+            @RequestParam(defaultValue = "10") int topK,
+            @RequestParam(required = false) String fields
     ) {
+        Set<String> selectedFields;
         try {
-            List<Map<String, Object>> matches = vectorSearchService.searchByQuery(query, topK);
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return invalidFields(e);
+        }
+
+        try {
+            List<Map<String, Object>> matches = matchFieldSelector.selectMaps(
+                vectorSearchService.searchByQuery(query, topK), selectedFields, true);
 
             Map<String, Object> response = new HashMap<>();
             response.put("query", query);
@@ -185,8 +426,16 @@ public class MatchingController {
      */
     @PostMapping("/search/filtered")
     public ResponseEntity<Map<String, Object>> searchWithFilters(
-            @RequestBody Map<String, Object> request
+            @RequestBody Map<String, Object> request,
+            @RequestParam(required = false) String fields
     ) {
+        Set<String> selectedFields;
+        try {
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return invalidFields(e);
+        }
+
         try {
             String query = (String) request.get("query");
             Integer minBudget = request.get("minBudget") != null
@@ -200,9 +449,9 @@ public class MatchingController {
                 ? ((Number) request.get("topK")).intValue()
                 : 10;
 
-            List<Map<String, Object>> matches = vectorSearchService.searchWithFilters(
-                query, minBudget, maxBudget, zipCode, topK
-            );
+            List<Map<String, Object>> matches = matchFieldSelector.selectMaps(
+                vectorSearchService.searchWithFilters(query, minBudget, maxBudget, zipCode, topK),
+                selectedFields, true);
 
             Map<String, Object> response = new HashMap<>();
             response.put("query", query);
@@ -246,25 +495,305 @@ public class MatchingController {
             Map<String, Object> scores = ultraOptimizedVectorSearchService.calculatePairwiseScores(userId1, userId2);
 
             // Return the scores with validation status
+            return ResponseEntity.ok(toValidateResponse(userId1, userId2, scores));
+
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Match validation failed");
+            errorResponse.put("message", e.getMessage());
+            log.error("Match validation failed for {} / {}", request.get("userId1"), request.get("userId2"), e);
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * Validate one user against many counterparts in a single call
+     * POST /api/matching/validate/batch
+     * Body: { "userId": "user123", "counterpartIds": ["user456", "user789"] }
+     *
+     * Loads every user with one query and all embeddings with one batched Vertex AI call.
+     * Each entry in "results" has the same shape as the /validate response, in request order.
+     * At most 100 distinct counterparts per call; userId itself may not be one of them.
+     */
+    @PostMapping("/validate/batch")
+    public ResponseEntity<Map<String, Object>> validateMatchBatch(@RequestBody Map<String, Object> request) {
+        try {
+            String userId = (String) request.get("userId");
+            Object rawCounterpartIds = request.get("counterpartIds");
+
+            if (userId == null || !(rawCounterpartIds instanceof List<?> counterpartList)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "userId and counterpartIds are required"));
+            }
+
+            List<String> counterpartIds = counterpartList.stream()
+                .map(String::valueOf)
+                .distinct()
+                .toList();
+
+            if (counterpartIds.size() > MAX_VALIDATE_BATCH_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Too many counterpartIds",
+                    "message", "At most " + MAX_VALIDATE_BATCH_SIZE + " counterparts per request, got " + counterpartIds.size()
+                ));
+            }
+            if (counterpartIds.contains(userId)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Cannot validate a user against themselves",
+                    "message", "counterpartIds must not contain userId " + userId
+                ));
+            }
+
+            Map<String, Map<String, Object>> scoresById =
+                ultraOptimizedVectorSearchService.calculatePairwiseScoresBatch(userId, counterpartIds);
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (String counterpartId : counterpartIds) {
+                Map<String, Object> scores = scoresById.get(counterpartId);
+                if (scores == null) {
+                    Map<String, Object> missing = new HashMap<>();
+                    missing.put("userId1", userId);
+                    missing.put("userId2", counterpartId);
+                    missing.put("error", "User not found");
+                    results.add(missing);
+                } else {
+                    results.add(toValidateResponse(userId, counterpartId, scores));
+                }
+            }
+
             Map<String, Object> response = new HashMap<>();
-            response.put("userId1", userId1);
-            response.put("userId2", userId2);
-            response.put("mutualScore", scores.get("mutualScore"));
-            response.put("similarityScore", scores.get("similarityScore"));
-            response.put("isLowMatch", scores.get("isLowMatch"));
-            response.put("stillMatches", scores.get("meetsRequirements"));
-            response.put("attributeScore", scores.get("attributeScore"));
-            response.put("embeddingScore", scores.get("embeddingScore"));
-            response.put("error", scores.get("error")); // Include error if Vertex AI fetch failed
+            response.put("userId", userId);
+            response.put("totalResults", results.size());
+            response.put("results", results);
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "User not found");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(404).body(errorResponse);
+
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Match validation failed");
+            errorResponse.put("error", "Batch match validation failed");
             errorResponse.put("message", e.getMessage());
-            e.printStackTrace();
+            log.error("Batch match validation failed for {}", request.get("userId"), e);
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
+
+    private SseEmitter streamMatches(String userId, int topK, String fields, String matchingType, MatchingRun run) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+
+        Set<String> selectedFields;
+        try {
+            selectedFields = matchFieldSelector.parse(fields);
+        } catch (IllegalArgumentException e) {
+            try {
+                emitter.send(SseEmitter.event().name("error").data(Map.of("error", "Invalid fields", "message", e.getMessage())));
+            } catch (IOException ignored) {
+                // Client already gone
+            }
+            emitter.complete();
+            return emitter;
+        }
+
+        boolean showsUser = selectedFields == null || selectedFields.contains(MatchFieldSelector.USER);
+        SseMatchStream stream = new SseMatchStream(emitter,
+            showsUser ? this::withCardFields : batch -> batch.stream().map(MatchResult::from).toList(),
+            match -> selectedFields == null ? match : matchFieldSelector.select(List.of(match), selectedFields).get(0),
+            streamBatchSize, streamBatchMaxDelayMs);
+
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(e -> stream.close());
+
+        try {
+            matchStreamExecutor.execute(() -> {
+                long startTime = System.currentTimeMillis();
+                try {
+                    List<Map<String, Object>> topMatches = run.execute(stream);
+                    stream.flush();
+
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("userId", userId);
+                    summary.put("matchingType", matchingType);
+                    summary.put("topK", topK);
+                    summary.put("totalScored", stream.getMatchCount());
+                    summary.put("totalMatches", topMatches.size());
+                    summary.put("rankedUserIds", topMatches.stream().map(m -> m.get("userId")).toList());
+                    summary.put("matches", topMatches.stream().map(m -> stream.view(MatchResult.from(m))).toList());
+                    summary.put("stages", stream.getStages());
+                    summary.put("executionTime_ms", System.currentTimeMillis() - startTime);
+
+                    stream.send("summary", summary);
+                    emitter.complete();
+
+                } catch (IllegalArgumentException e) {
+                    stream.send("error", Map.of("error", "User not found", "message", String.valueOf(e.getMessage())));
+                    emitter.complete();
+
+                } catch (Exception e) {
+                    log.error("Streaming {} match failed for {}", matchingType, userId, e);
+                    stream.send("error", Map.of("error", "Streaming match failed", "message", String.valueOf(e.getMessage())));
+                    emitter.complete();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            stream.send("error", Map.of("error", "Too many streaming match requests", "message", "Try again shortly"));
+            emitter.complete();
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Scored candidates carry the slim matching projection; load the rest of the card
+     * (image, about-me, timestamp) for a whole batch with one $in query, so "match" events
+     * show the same profile as the summary
+     */
+    private List<MatchResult> withCardFields(List<Map<String, Object>> batch) {
+        List<String> slimIds = batch.stream()
+            .filter(match -> !(match.get("user") instanceof UserModel))
+            .map(match -> (String) match.get("userId"))
+            .toList();
+        Map<String, UserModel> cards = Map.of();
+        if (!slimIds.isEmpty()) {
+            try {
+                cards = userHydrationService.findAllById(slimIds, PublicProfile.CARD_FIELDS);
+            } catch (RuntimeException e) {
+                // The summary is hydrated separately - stream the slim cards rather than fail the run
+                log.warn("Card hydration failed for {} streamed matches: {}", slimIds.size(), e.getMessage());
+            }
+        }
+
+        List<MatchResult> results = new ArrayList<>(batch.size());
+        for (Map<String, Object> match : batch) {
+            MatchResult result = MatchResult.from(match);
+            UserModel card = cards.get(result.userId());
+            results.add(card != null ? result.withUser(result.user().withCardFields(card)) : result);
+        }
+        return results;
+    }
+
+    // One matching engine invocation, reporting progress to the listener
+    @FunctionalInterface
+    private interface MatchingRun {
+        List<Map<String, Object>> execute(MatchProgressListener listener) throws Exception;
+    }
+
+    /**
+     * Forwards engine progress to an SSE connection
+     * Matches are converted and sent in small batches (by size, age, and at every stage end), so
+     * per-batch work such as card hydration costs one query per batch rather than per match.
+     * Once the client is gone further sends are dropped (the engine itself runs to completion)
+     */
+    private static class SseMatchStream implements MatchProgressListener {
+        private final SseEmitter emitter;
+        private final Function<List<Map<String, Object>>, List<MatchResult>> toResults;
+        private final Function<MatchResult, Object> view;
+        private final int batchSize;
+        private final long batchMaxDelayNanos;
+        private final Map<String, Object> stages = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final List<Map<String, Object>> pending = new ArrayList<>();
+        private long pendingSinceNanos;
+        private volatile boolean closed;
+        private int matchCount;
+
+        SseMatchStream(SseEmitter emitter, Function<List<Map<String, Object>>, List<MatchResult>> toResults,
+                       Function<MatchResult, Object> view, int batchSize, long batchMaxDelayMs) {
+            this.emitter = emitter;
+            this.toResults = toResults;
+            this.view = view;
+            this.batchSize = Math.max(1, batchSize);
+            this.batchMaxDelayNanos = TimeUnit.MILLISECONDS.toNanos(batchMaxDelayMs);
+        }
+
+        @Override
+        public void onMatch(Map<String, Object> match) {
+            matchCount++;
+            if (closed) {
+                return;
+            }
+            if (pending.isEmpty()) {
+                pendingSinceNanos = System.nanoTime();
+            }
+            pending.add(match);
+            if (pending.size() >= batchSize || System.nanoTime() - pendingSinceNanos >= batchMaxDelayNanos) {
+                flush();
+            }
+        }
+
+        @Override
+        public void onStage(String stage, long durationMs, int count) {
+            stages.put(stage, Map.of("duration_ms", durationMs, "count", count));
+            flush();
+        }
+
+        /**
+         * Send the buffered matches (engine thread only)
+         */
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Map<String, Object>> batch = new ArrayList<>(pending);
+            pending.clear();
+            if (closed) {
+                return;
+            }
+            for (MatchResult result : toResults.apply(batch)) {
+                send("match", view.apply(result));
+            }
+        }
+
+        Object view(MatchResult match) {
+            return view.apply(match);
+        }
+
+        int getMatchCount() {
+            return matchCount;
+        }
+
+        Map<String, Object> getStages() {
+            return stages;
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        synchronized void send(String name, Object data) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnected - stop sending
+                closed = true;
+            }
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> invalidFields(IllegalArgumentException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Invalid fields");
+        errorResponse.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    private Map<String, Object> toValidateResponse(String userId1, String userId2, Map<String, Object> scores) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId1", userId1);
+        response.put("userId2", userId2);
+        response.put("mutualScore", scores.get("mutualScore"));
+        response.put("similarityScore", scores.get("similarityScore"));
+        response.put("isLowMatch", scores.get("isLowMatch"));
+        response.put("stillMatches", scores.get("meetsRequirements"));
+        response.put("attributeScore", scores.get("attributeScore"));
+        response.put("embeddingScore", scores.get("embeddingScore"));
+        response.put("error", scores.get("error")); // Include error if Vertex AI fetch failed
+        return response;
+    }
 }
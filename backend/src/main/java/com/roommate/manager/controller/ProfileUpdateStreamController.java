@@ -1,5 +1,8 @@
 package com.roommate.manager.controller;
 
+import com.roommate.manager.jfr.SseFanOutEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +18,8 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @CrossOrigin(originPatterns = "*", allowCredentials = "false")
 public class ProfileUpdateStreamController {
 
+    private static final Logger log = LoggerFactory.getLogger(ProfileUpdateStreamController.class);
+
     // Store active SSE connections
     private final CopyOnWriteArrayList<SseEmitter> emitters = new CopyOnWriteArrayList<>();
 
@@ -23,19 +28,19 @@ public class ProfileUpdateStreamController {
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE); // No timeout
 
         emitters.add(emitter);
-        System.out.println("✅ New SSE client connected. Total clients: " + emitters.size());
+        log.info("✅ New SSE client connected. Total clients: {}", emitters.size());
 
         emitter.onCompletion(() -> {
             emitters.remove(emitter);
-            System.out.println("🔌 SSE client disconnected (completion). Total clients: " + emitters.size());
+            log.info("🔌 SSE client disconnected (completion). Total clients: {}", emitters.size());
         });
         emitter.onTimeout(() -> {
             emitters.remove(emitter);
-            System.out.println("⏰ SSE client disconnected (timeout). Total clients: " + emitters.size());
+            log.info("⏰ SSE client disconnected (timeout). Total clients: {}", emitters.size());
         });
         emitter.onError((e) -> {
             emitters.remove(emitter);
-            System.out.println("❌ SSE client disconnected (error): " + e.getMessage() + ". Total clients: " + emitters.size());
+            log.info("❌ SSE client disconnected (error): {}. Total clients: {}", e.getMessage(), emitters.size());
         });
 
         return emitter;
@@ -54,8 +59,10 @@ public class ProfileUpdateStreamController {
             "timestamp", String.valueOf(System.currentTimeMillis())
         );
 
-        System.out.println("📢 Broadcasting profile update to " + emitters.size() + " clients: " + update);
+        log.debug("📢 Broadcasting profile update to {} clients: {}", emitters.size(), update);
 
+        SseFanOutEvent fanOut = SseFanOutEvent.start(SseFanOutEvent.PROFILE_UPDATES, "profile-update");
+        int connections = emitters.size();
         int successCount = 0;
         int removedCount = 0;
         CopyOnWriteArrayList<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
@@ -72,23 +79,24 @@ public class ProfileUpdateStreamController {
                 removedCount++;
                 // Only log if it's not a common disconnect error
                 if (!e.getMessage().contains("Broken pipe") && !e.getMessage().contains("Connection reset")) {
-                    System.out.println("⚠️ Failed to send to client: " + e.getMessage());
+                    log.warn("⚠️ Failed to send to client: {}", e.getMessage());
                 }
             } catch (Exception e) {
                 // Unexpected error
                 deadEmitters.add(emitter);
                 removedCount++;
-                System.out.println("❌ Unexpected error sending to client: " + e.getMessage());
+                log.warn("❌ Unexpected error sending to client: {}", e.getMessage());
             }
         }
 
         // Remove dead emitters
         if (!deadEmitters.isEmpty()) {
             emitters.removeAll(deadEmitters);
-            System.out.println("🧹 Removed " + removedCount + " dead connections. Successfully sent to " + successCount + " clients. Active: " + emitters.size());
+            log.debug("🧹 Removed {} dead connections. Successfully sent to {} clients. Active: {}", removedCount, successCount, emitters.size());
         } else if (successCount > 0) {
-            System.out.println("✉️ Successfully sent update to " + successCount + " clients");
+            log.debug("✉️ Successfully sent update to {} clients", successCount);
         }
+        fanOut.finish(connections, connections, successCount);
     }
 
     public int getActiveConnections() {
@@ -0,0 +1,62 @@
+package com.roommate.manager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one user upload to the Vector Search index, embedding generation included
+ * The Vertex calls inside it show up as nested VertexRpc events on the same thread
+ */
+@Name("com.roommate.manager.IndexUpsert")
+@Label("Index Upsert")
+@Category({"Roommate Manager", "Vertex AI"})
+@Description("Profile + preference vectors uploaded for one user")
+@StackTrace(false)
+public class IndexUpsertEvent extends Event {
+
+    @Label("User ID")
+    String userId;
+
+    @Label("Datapoints")
+    int datapoints;
+
+    @Label("Dimensions")
+    int dimensions;
+
+    @Label("City Restricted")
+    boolean cityRestricted;
+
+    @Label("Success")
+    boolean success;
+
+    public static IndexUpsertEvent start(String userId) {
+        IndexUpsertEvent event = new IndexUpsertEvent();
+        event.userId = userId;
+        event.begin();
+        return event;
+    }
+
+    public void datapoints(int datapoints, int dimensions, boolean cityRestricted) {
+        this.datapoints = datapoints;
+        this.dimensions = dimensions;
+        this.cityRestricted = cityRestricted;
+    }
+
+    public void succeeded() {
+        this.success = true;
+    }
+
+    /**
+     * Always called from a finally block; success stays false unless {@link #succeeded()} was called
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.roommate.manager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one matching engine stage (candidate search, embedding fetch, scoring)
+ * Same stage names as the matching.stage metric, so recordings and dashboards line up
+ */
+@Name("com.roommate.manager.MatchingStage")
+@Label("Matching Stage")
+@Category({"Roommate Manager", "Matching"})
+@Description("One stage of a matching request")
+@StackTrace(false)
+public class MatchingStageEvent extends Event {
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("User ID")
+    String userId;
+
+    @Label("Candidates")
+    int candidates;
+
+    /**
+     * Begin timing a stage; finish it with {@link #finish(int)}
+     */
+    public static MatchingStageEvent start(String engine, String stage, String userId) {
+        MatchingStageEvent event = new MatchingStageEvent();
+        event.engine = engine;
+        event.stage = stage;
+        event.userId = userId;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int candidates) {
+        end();
+        if (shouldCommit()) {
+            this.candidates = candidates;
+            commit();
+        }
+    }
+}
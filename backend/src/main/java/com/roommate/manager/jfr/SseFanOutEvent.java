@@ -0,0 +1,58 @@
+package com.roommate.manager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one SSE broadcast (chat or profile updates) across all the emitters it reaches
+ */
+@Name("com.roommate.manager.SseFanOut")
+@Label("SSE Fan-Out")
+@Category({"Roommate Manager", "SSE"})
+@Description("One server-sent event broadcast")
+@StackTrace(false)
+public class SseFanOutEvent extends Event {
+
+    public static final String CHAT = "chat";
+    public static final String PROFILE_UPDATES = "profile-updates";
+
+    @Label("Stream")
+    String stream;
+
+    @Label("Event Name")
+    String eventName;
+
+    @Label("Users")
+    int users;
+
+    @Label("Connections")
+    int connections;
+
+    @Label("Delivered")
+    int delivered;
+
+    public static SseFanOutEvent start(String stream, String eventName) {
+        SseFanOutEvent event = new SseFanOutEvent();
+        event.stream = stream;
+        event.eventName = eventName;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param connections Emitters the event was sent to; the difference to delivered were dead and removed
+     */
+    public void finish(int users, int connections, int delivered) {
+        end();
+        if (shouldCommit()) {
+            this.users = users;
+            this.connections = connections;
+            this.delivered = delivered;
+            commit();
+        }
+    }
+}
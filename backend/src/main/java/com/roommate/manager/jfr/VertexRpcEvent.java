@@ -0,0 +1,69 @@
+package com.roommate.manager.jfr;
+
+import com.google.protobuf.MessageLite;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one Vertex AI RPC (findNeighbors, upsertDatapoints, removeDatapoints, predict)
+ * Message sizes are only computed when the event is actually recorded
+ */
+@Name("com.roommate.manager.VertexRpc")
+@Label("Vertex AI RPC")
+@Category({"Roommate Manager", "Vertex AI"})
+@Description("One blocking call to Vertex AI")
+@StackTrace(false)
+public class VertexRpcEvent extends Event {
+
+    public static final String FIND_NEIGHBORS = "findNeighbors";
+    public static final String UPSERT_DATAPOINTS = "upsertDatapoints";
+    public static final String REMOVE_DATAPOINTS = "removeDatapoints";
+    public static final String PREDICT = "predict";
+
+    @Label("RPC")
+    String rpc;
+
+    @Label("Datapoints")
+    @Description("Queries, datapoints or instances sent in the request")
+    int datapoints;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * Begin timing an RPC; always finish it (in a finally block) with {@link #finish}
+     */
+    public static VertexRpcEvent start(String rpc, int datapoints) {
+        VertexRpcEvent event = new VertexRpcEvent();
+        event.rpc = rpc;
+        event.datapoints = datapoints;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param response null when the call failed
+     */
+    public void finish(MessageLite request, MessageLite response) {
+        end();
+        if (shouldCommit()) {
+            requestBytes = request.getSerializedSize();
+            responseBytes = response != null ? response.getSerializedSize() : 0;
+            success = response != null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.roommate.manager.kafka;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Correlation ID and per-hop wall clock timestamps (epoch ms) carried in the Kafka headers of chat.message.sent
+ *
+ * receivedAt  - ChatController.sendMessage entered
+ * persistedAt - message and conversation saved to MongoDB
+ * publishedAt - handed to the Kafka producer
+ *
+ * Headers missing on a record (e.g. produced by an older instance) read back as null / 0.
+ */
+public record ChatDeliveryTrace(String correlationId, long receivedAt, long persistedAt, long publishedAt) {
+
+    public static final String CORRELATION_ID = "x-correlation-id";
+    public static final String RECEIVED_AT = "x-chat-received-at";
+    public static final String PERSISTED_AT = "x-chat-persisted-at";
+    public static final String PUBLISHED_AT = "x-chat-published-at";
+
+    public static ChatDeliveryTrace received(String correlationId, long receivedAt, long persistedAt) {
+        return new ChatDeliveryTrace(correlationId, receivedAt, persistedAt, 0L);
+    }
+
+    public ChatDeliveryTrace withPublishedAt(long publishedAt) {
+        return new ChatDeliveryTrace(correlationId, receivedAt, persistedAt, publishedAt);
+    }
+
+    public void writeTo(Headers headers) {
+        if (correlationId != null) {
+            headers.add(CORRELATION_ID, correlationId.getBytes(StandardCharsets.UTF_8));
+        }
+        addTimestamp(headers, RECEIVED_AT, receivedAt);
+        addTimestamp(headers, PERSISTED_AT, persistedAt);
+        addTimestamp(headers, PUBLISHED_AT, publishedAt);
+    }
+
+    public static ChatDeliveryTrace from(Headers headers) {
+        Header correlationId = headers.lastHeader(CORRELATION_ID);
+        return new ChatDeliveryTrace(
+            correlationId != null ? new String(correlationId.value(), StandardCharsets.UTF_8) : null,
+            readTimestamp(headers, RECEIVED_AT),
+            readTimestamp(headers, PERSISTED_AT),
+            readTimestamp(headers, PUBLISHED_AT)
+        );
+    }
+
+    private static void addTimestamp(Headers headers, String key, long epochMillis) {
+        if (epochMillis > 0) {
+            headers.add(key, Long.toString(epochMillis).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static long readTimestamp(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        if (header == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.roommate.manager.kafka;
 
+import com.roommate.manager.metrics.ChatDeliveryMetrics;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
@@ -11,10 +15,14 @@ import com.roommate.manager.model.events.ProfileUpdateEvent;
 @Service
 public class KafkaProducerService {
 
+    private static final Logger log = LoggerFactory.getLogger(KafkaProducerService.class);
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ChatDeliveryMetrics chatDeliveryMetrics;
 
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate, ChatDeliveryMetrics chatDeliveryMetrics) {
         this.kafkaTemplate = kafkaTemplate;
+        this.chatDeliveryMetrics = chatDeliveryMetrics;
     }
 
     /**
@@ -27,10 +35,19 @@ public class KafkaProducerService {
 
     /**
      * Send chat message event to Kafka
+     * The delivery trace (correlation ID + hop timestamps) travels in the record headers
      */
-    public void sendChatMessage(MessageEvent event) {
-        kafkaTemplate.send("chat.message.sent", event.getConversationId(), event);
-        System.out.println("📤 Published message event to Kafka: " + event.getMessageId());
+    public void sendChatMessage(MessageEvent event, ChatDeliveryTrace trace) {
+        long publishedAt = System.currentTimeMillis();
+        ProducerRecord<String, Object> record = new ProducerRecord<>("chat.message.sent", event.getConversationId(), event);
+        trace.withPublishedAt(publishedAt).writeTo(record.headers());
+
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex == null) {
+                chatDeliveryMetrics.recordHop(ChatDeliveryMetrics.PRODUCE, publishedAt, System.currentTimeMillis());
+            }
+        });
+        log.debug("📤 Published message event to Kafka: {} (correlation {})", event.getMessageId(), trace.correlationId());
     }
 
     /**
@@ -38,7 +55,10 @@ public class KafkaProducerService {
      */
     public void sendMessageReadReceipt(MessageReadEvent event) {
         kafkaTemplate.send("chat.message.read", event.getConversationId(), event);
-        System.out.println("📤 Published read receipt event to Kafka: " + event.getMessageIds().size() + " messages");
+        if (log.isDebugEnabled()) {
+            log.debug("📤 Published read receipt event to Kafka: {}",
+                    event.getUpTo() != null ? "all up to " + event.getUpTo() : event.getMessageIds().size() + " messages");
+        }
     }
 
     /**
@@ -46,6 +66,6 @@ public class KafkaProducerService {
      */
     public void sendMessageDeleted(MessageDeleteEvent event) {
         kafkaTemplate.send("chat.message.deleted", event.getConversationId(), event);
-        System.out.println("📤 Published message deletion event to Kafka: " + event.getMessageId());
+        log.debug("📤 Published message deletion event to Kafka: {}", event.getMessageId());
     }
 }
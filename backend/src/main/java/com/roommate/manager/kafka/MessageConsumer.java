@@ -1,7 +1,15 @@
 package com.roommate.manager.kafka;
 
 import com.roommate.manager.controller.ChatStreamController;
+import com.roommate.manager.metrics.ChatDeliveryMetrics;
 import com.roommate.manager.model.events.MessageEvent;
+import com.roommate.manager.model.MessageModel;
+import com.roommate.manager.service.RecentMessageCache;
+import com.roommate.manager.service.UnreadTotalService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -16,14 +24,45 @@ import java.util.Map;
 @Service
 public class MessageConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(MessageConsumer.class);
+
+    private static final String MDC_CORRELATION_ID = "correlationId";
+
     @Autowired
     private ChatStreamController chatStreamController;
 
+    @Autowired
+    private ChatDeliveryMetrics chatDeliveryMetrics;
+
+    @Autowired
+    private UnreadTotalService unreadTotalService;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
     @KafkaListener(topics = "chat.message.sent", groupId = "chat-message-handler")
-    public void handleNewMessage(MessageEvent event) {
-        System.out.println("📨 Received new message event: " + event.getMessageId());
+    public void handleNewMessage(ConsumerRecord<String, MessageEvent> record) {
+        long consumedAt = System.currentTimeMillis();
+        MessageEvent event = record.value();
+        ChatDeliveryTrace trace = ChatDeliveryTrace.from(record.headers());
+
+        // Consumer lag: producer hand-off (or the record's create time for untraced records) -> now
+        long publishedAt = trace.publishedAt() > 0 ? trace.publishedAt() : record.timestamp();
+        chatDeliveryMetrics.recordHop(ChatDeliveryMetrics.KAFKA, publishedAt, consumedAt);
+
+        if (trace.correlationId() != null) {
+            MDC.put(MDC_CORRELATION_ID, trace.correlationId());
+        }
+        log.debug("📨 Received new message event: {}", event.getMessageId());
 
         try {
+            // No-op when the sending instance already cached it, or nobody opened the conversation here
+            MessageModel message = new MessageModel(event.getConversationId(), event.getSenderId(),
+                    event.getRecipientId(), event.getContent());
+            message.setId(event.getMessageId());
+            message.setTimestamp(event.getTimestamp());
+            recentMessageCache.append(message);
+
             // Prepare message data for SSE
             Map<String, Object> messageData = new HashMap<>();
             messageData.put("messageId", event.getMessageId());
@@ -35,14 +74,31 @@ public class MessageConsumer {
             messageData.put("isRead", false);
 
             // Broadcast to recipient only
-            chatStreamController.broadcastNewMessage(event.getRecipientId(), messageData);
+            int delivered = chatStreamController.broadcastNewMessage(event.getRecipientId(), messageData);
+
+            long deliveredAt = System.currentTimeMillis();
+
+            // Skipped when a newer total (e.g. from a later read) was already seen
+            if (event.getRecipientUnreadTotal() != null) {
+                long seq = event.getRecipientUnreadSeq() != null ? event.getRecipientUnreadSeq() : 0L;
+                if (unreadTotalService.remember(event.getRecipientId(), event.getRecipientUnreadTotal(), seq)) {
+                    chatStreamController.broadcastUnreadTotal(event.getRecipientId(), event.getRecipientUnreadTotal());
+                }
+            }
+            chatDeliveryMetrics.recordHop(ChatDeliveryMetrics.PUSH, consumedAt, deliveredAt);
+            if (delivered > 0) {
+                chatDeliveryMetrics.recordHop(ChatDeliveryMetrics.TOTAL, trace.receivedAt(), deliveredAt);
+            } else {
+                chatDeliveryMetrics.recordUndelivered();
+            }
 
-            System.out.println("✅ Successfully broadcasted message " + event.getMessageId() +
-                    " to recipient " + event.getRecipientId());
+            log.debug("✅ Successfully broadcasted message {} to recipient {} ({} connections)",
+                    event.getMessageId(), event.getRecipientId(), delivered);
 
         } catch (Exception e) {
-            System.err.println("❌ Error processing new message event: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ Error processing new message event: {}", e.getMessage(), e);
+        } finally {
+            MDC.remove(MDC_CORRELATION_ID);
         }
     }
 }
@@ -2,6 +2,9 @@ package com.roommate.manager.kafka;
 
 import com.roommate.manager.controller.ChatStreamController;
 import com.roommate.manager.model.events.MessageDeleteEvent;
+import com.roommate.manager.service.RecentMessageCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -16,14 +19,21 @@ import java.util.Map;
 @Service
 public class MessageDeleteConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(MessageDeleteConsumer.class);
+
     @Autowired
     private ChatStreamController chatStreamController;
 
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
     @KafkaListener(topics = "chat.message.deleted", groupId = "chat-message-delete-handler")
     public void handleMessageDeleted(MessageDeleteEvent event) {
-        System.out.println("🗑️  Received message deletion event: " + event.getMessageId());
+        log.debug("🗑️  Received message deletion event: {}", event.getMessageId());
 
         try {
+            recentMessageCache.remove(event.getConversationId(), event.getMessageId());
+
             Map<String, Object> deletionData = new HashMap<>();
             deletionData.put("messageId", event.getMessageId());
             deletionData.put("conversationId", event.getConversationId());
@@ -35,11 +45,10 @@ public class MessageDeleteConsumer {
             // Frontend will filter by conversationId
             chatStreamController.broadcastMessageDeleted(event.getConversationId(), deletionData);
 
-            System.out.println("✅ Broadcasted message deletion for message " + event.getMessageId());
+            log.debug("✅ Broadcasted message deletion for message {}", event.getMessageId());
 
         } catch (Exception e) {
-            System.err.println("❌ Error processing message deletion event: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ Error processing message deletion event for {}: {}", event.getMessageId(), e.getMessage(), e);
         }
     }
 }
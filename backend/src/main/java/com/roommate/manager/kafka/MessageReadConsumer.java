@@ -4,6 +4,9 @@ import com.roommate.manager.controller.ChatStreamController;
 import com.roommate.manager.model.MessageModel;
 import com.roommate.manager.model.events.MessageReadEvent;
 import com.roommate.manager.repository.MessageRepository;
+import com.roommate.manager.service.UnreadTotalService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -20,26 +23,49 @@ import java.util.stream.Collectors;
 @Service
 public class MessageReadConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(MessageReadConsumer.class);
+
     @Autowired
     private ChatStreamController chatStreamController;
 
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private UnreadTotalService unreadTotalService;
+
     @KafkaListener(topics = "chat.message.read", groupId = "chat-read-receipt-handler")
     public void handleMessageRead(MessageReadEvent event) {
-        System.out.println("👀 Received message read event: " + event.getMessageIds().size() + " messages");
+        List<String> eventMessageIds = event.getMessageIds() != null ? event.getMessageIds() : List.of();
+        if (log.isDebugEnabled()) {
+            log.debug("👀 Received message read event: {}",
+                    event.getUpTo() != null ? "all up to " + event.getUpTo() : eventMessageIds.size() + " messages");
+        }
 
         try {
-            // Get messages to determine senders
-            List<MessageModel> messages = messageRepository.findAllById(event.getMessageIds());
+            // The reader's other tabs / devices drop their badge, unless a newer total was already seen
+            if (event.getUnreadTotal() != null) {
+                long seq = event.getUnreadSeq() != null ? event.getUnreadSeq() : 0L;
+                if (unreadTotalService.remember(event.getUserId(), event.getUnreadTotal(), seq)) {
+                    chatStreamController.broadcastUnreadTotal(event.getUserId(), event.getUnreadTotal());
+                }
+            }
+
+            Map<String, List<String>> senderToMessageIds;
+            if (event.getSenderId() != null) {
+                // One-to-one conversation: every message the reader received came from the other participant
+                senderToMessageIds = Map.of(event.getSenderId(), eventMessageIds);
+            } else {
+                // Older events: get messages to determine senders
+                List<MessageModel> messages = messageRepository.findAllById(eventMessageIds);
 
-            // Group by sender (in case batch read includes messages from multiple senders)
-            Map<String, List<String>> senderToMessageIds = messages.stream()
-                    .collect(Collectors.groupingBy(
-                            MessageModel::getSenderId,
-                            Collectors.mapping(MessageModel::getId, Collectors.toList())
-                    ));
+                // Group by sender (in case batch read includes messages from multiple senders)
+                senderToMessageIds = messages.stream()
+                        .collect(Collectors.groupingBy(
+                                MessageModel::getSenderId,
+                                Collectors.mapping(MessageModel::getId, Collectors.toList())
+                        ));
+            }
 
             // Broadcast read receipt to each sender
             for (Map.Entry<String, List<String>> entry : senderToMessageIds.entrySet()) {
@@ -51,16 +77,17 @@ public class MessageReadConsumer {
                 readReceiptData.put("messageIds", messageIds);
                 readReceiptData.put("readBy", event.getUserId());
                 readReceiptData.put("readAt", event.getReadAt().toString());
+                if (event.getUpTo() != null) {
+                    readReceiptData.put("upTo", event.getUpTo().toString());
+                }
 
                 chatStreamController.broadcastReadReceipt(senderId, readReceiptData);
 
-                System.out.println("✅ Broadcasted read receipt to sender " + senderId +
-                        " for " + messageIds.size() + " messages");
+                log.debug("✅ Broadcasted read receipt to sender {} for {} messages", senderId, messageIds.size());
             }
 
         } catch (Exception e) {
-            System.err.println("❌ Error processing message read event: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ Error processing message read event: {}", e.getMessage(), e);
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.roommate.manager.kafka;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -9,6 +11,9 @@ import com.roommate.manager.model.events.ProfileUpdateEvent;
 import com.roommate.manager.model.UserModel;
 import com.roommate.manager.repository.UserRepository;
 import com.roommate.manager.service.IndexManagementService;
+import com.roommate.manager.service.MatchMaterializationService;
+import com.roommate.manager.service.MatchResultCache;
+import com.roommate.manager.service.PairwiseScoreCache;
 
 /**
  * Kafka consumer that listens for profile/preference update events
@@ -17,6 +22,8 @@ import com.roommate.manager.service.IndexManagementService;
 @Service
 public class ProfileUpdateConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(ProfileUpdateConsumer.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -26,9 +33,18 @@ public class ProfileUpdateConsumer {
     @Autowired
     private ProfileUpdateStreamController streamController;
 
+    @Autowired
+    private MatchMaterializationService matchMaterializationService;
+
+    @Autowired
+    private MatchResultCache matchResultCache;
+
+    @Autowired
+    private PairwiseScoreCache pairwiseScoreCache;
+
     @KafkaListener(topics = "profile.updated", groupId = "profile-update-handler")
     public void handleProfileUpdate(ProfileUpdateEvent event) {
-        System.out.println("Received profile update event: " + event);
+        log.debug("Received profile update event: {}", event);
 
         try {
             String userId = event.getUserId();
@@ -39,7 +55,7 @@ public class ProfileUpdateConsumer {
             UserModel user = userRepository.findById(userId).orElse(null);
 
             if (user == null) {
-                System.err.println("User not found for profile update event: " + userId);
+                log.warn("User not found for profile update event: {}", userId);
                 return;
             }
 
@@ -47,16 +63,23 @@ public class ProfileUpdateConsumer {
             // This will recalculate matching scores in real-time
             indexManagementService.uploadUserToIndex(user);
 
+            // Drop cached match results that mention this user (as owner or as a candidate)
+            matchResultCache.invalidateUser(userId);
+
+            // Pairwise scores computed before the new embeddings were indexed are stale too
+            pairwiseScoreCache.invalidateUser(userId);
+
+            // Re-score only the pairs involving this user in the materialized match lists
+            matchMaterializationService.onProfileUpdated(userId);
+
             // Broadcast to all connected clients via SSE
             streamController.broadcastProfileUpdate(userId, firstName, lastName, event.getUpdateType());
 
-            System.out.println("Successfully updated vector index for user: " + userId +
-                             " (update type: " + event.getUpdateType() + ")" +
-                             " - Broadcasted to " + streamController.getActiveConnections() + " clients");
+            log.info("Updated vector index for user {} (update type: {}) - broadcasted to {} clients",
+                userId, event.getUpdateType(), streamController.getActiveConnections());
 
         } catch (Exception e) {
-            System.err.println("Error processing profile update event: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error processing profile update event: {}", e.getMessage(), e);
         }
     }
 }
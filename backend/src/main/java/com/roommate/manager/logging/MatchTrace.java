@@ -0,0 +1,87 @@
+package com.roommate.manager.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Per-candidate matching trace, only emitted for the user IDs listed in matching.trace.user-ids
+ *
+ * Matching entry points open a scope for the user(s) involved; hot loops then guard every
+ * detail line with enabled(), so untraced requests pay neither the string building nor the I/O.
+ * The traced user is also put in the MDC (matchUserId) so the lines can be filtered downstream.
+ */
+public final class MatchTrace {
+
+    public static final Logger LOG = LoggerFactory.getLogger("com.roommate.manager.matching.trace");
+
+    public static final String MDC_USER_ID = "matchUserId";
+
+    private static volatile Set<String> tracedUserIds = Set.of();
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private MatchTrace() {
+    }
+
+    static void setTracedUserIds(Collection<String> userIds) {
+        tracedUserIds = Set.copyOf(userIds);
+    }
+
+    /**
+     * @return true when the current matching request involves a traced user
+     */
+    public static boolean enabled() {
+        return Boolean.TRUE.equals(ACTIVE.get()) && LOG.isInfoEnabled();
+    }
+
+    /**
+     * Start tracing the current thread if any of the users is traced
+     * Use in try-with-resources; nested scopes restore the outer state on close
+     */
+    public static Scope begin(String... userIds) {
+        Scope scope = new Scope(ACTIVE.get(), MDC.get(MDC_USER_ID));
+
+        String traced = null;
+        for (String userId : userIds) {
+            if (userId != null && tracedUserIds.contains(userId)) {
+                traced = userId;
+                break;
+            }
+        }
+
+        if (traced != null) {
+            ACTIVE.set(Boolean.TRUE);
+            MDC.put(MDC_USER_ID, traced);
+        }
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Boolean previousActive;
+        private final String previousUserId;
+
+        private Scope(Boolean previousActive, String previousUserId) {
+            this.previousActive = previousActive;
+            this.previousUserId = previousUserId;
+        }
+
+        @Override
+        public void close() {
+            if (previousActive != null) {
+                ACTIVE.set(previousActive);
+            } else {
+                ACTIVE.remove();
+            }
+            if (previousUserId != null) {
+                MDC.put(MDC_USER_ID, previousUserId);
+            } else {
+                MDC.remove(MDC_USER_ID);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.roommate.manager.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * Loads the traced user IDs (comma separated) into MatchTrace
+ */
+@Configuration
+public class MatchTraceConfig {
+
+    public MatchTraceConfig(@Value("${matching.trace.user-ids:}") String userIds) {
+        MatchTrace.setTracedUserIds(Arrays.stream(userIds.split(","))
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .toList());
+    }
+}
@@ -0,0 +1,60 @@
+package com.roommate.manager.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many events per second loggers under a prefix may emit (configured in logback-spring.xml)
+ * ERROR is never dropped. Dropped events are counted and reported once the next window opens,
+ * so a burst (e.g. an SSE fan-out storm) degrades to a summary instead of flooding the appender.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.roommate.manager";
+    private int maxEventsPerSecond = 200;
+
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicLong eventsInWindow = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || level.isGreaterOrEqual(Level.ERROR) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        // Don't count events the logger would discard anyway
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        long now = System.nanoTime() / 1_000_000_000L;
+        long start = windowStart.get();
+        if (now != start && windowStart.compareAndSet(start, now)) {
+            eventsInWindow.set(0);
+            long droppedLastWindow = dropped.getAndSet(0);
+            if (droppedLastWindow > 0) {
+                logger.getLoggerContext().getLogger(RateLimitingTurboFilter.class)
+                    .warn("Rate limit: dropped {} log events from {} in the last window", droppedLastWindow, loggerPrefix);
+            }
+        }
+
+        if (eventsInWindow.incrementAndGet() > maxEventsPerSecond) {
+            dropped.incrementAndGet();
+            return FilterReply.DENY;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+}
@@ -0,0 +1,58 @@
+package com.roommate.manager.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Send-to-deliver latency of chat messages, broken down by hop, scraped from /actuator/prometheus
+ *
+ * Meters:
+ * - chat.delivery              latency histogram per hop (tag: hop)
+ *     persist  HTTP send received -> message saved to MongoDB
+ *     produce  handed to the Kafka producer -> acknowledged by the broker
+ *     kafka    handed to the Kafka producer -> picked up by MessageConsumer (consumer lag)
+ *     push     picked up by MessageConsumer -> SSE send finished
+ *     total    HTTP send received -> SSE send finished (online recipients only)
+ * - chat.delivery.undelivered  messages consumed while the recipient had no SSE connection
+ *
+ * Hops crossing instances compare wall clocks, so clock skew shows up here; negative spans are recorded as 0.
+ */
+@Component
+public class ChatDeliveryMetrics {
+
+    public static final String PERSIST = "persist";
+    public static final String PRODUCE = "produce";
+    public static final String KAFKA = "kafka";
+    public static final String PUSH = "push";
+    public static final String TOTAL = "total";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Record one hop between two epoch millisecond timestamps; ignored when the start is unknown (0)
+     */
+    public void recordHop(String hop, long fromEpochMillis, long toEpochMillis) {
+        if (fromEpochMillis <= 0) {
+            return;
+        }
+        Timer.builder("chat.delivery")
+            .description("Chat message delivery latency per hop")
+            .tag("hop", hop)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(Duration.ofMillis(Math.max(0L, toEpochMillis - fromEpochMillis)));
+    }
+
+    public void recordUndelivered() {
+        Counter.builder("chat.delivery.undelivered")
+            .description("Chat messages consumed while the recipient was offline")
+            .register(registry)
+            .increment();
+    }
+}
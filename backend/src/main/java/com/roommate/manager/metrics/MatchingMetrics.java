@@ -0,0 +1,133 @@
+package com.roommate.manager.metrics;
+
+import com.roommate.manager.service.MatchResultCache;
+import com.roommate.manager.service.PairwiseScoreCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer instrumentation for the matching engines, scraped from /actuator/prometheus
+ *
+ * Meters:
+ * - matching.operation           latency histogram per public operation (tags: operation, outcome)
+ * - matching.stage               latency histogram per engine stage (tags: engine, stage)
+ * - matching.stage.candidates    candidates coming out of each stage
+ * - matching.skipped             candidates dropped while scoring (tags: engine, reason)
+ * - matching.cache.requests      hits / misses of the match result and pairwise caches
+ * - matching.cache.hit.ratio     hits / (hits + misses) since startup
+ */
+@Component
+public class MatchingMetrics {
+
+    // Engines
+    public static final String ULTRAFAST = "ultrafast";
+    public static final String HYBRID = "hybrid";
+
+    // Skip reasons
+    public static final String SKIP_INCOMPLETE = "incomplete_profile";
+    public static final String SKIP_HARD_REQUIREMENTS = "hard_requirements";
+    public static final String SKIP_MISSING_EMBEDDINGS = "missing_embeddings";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MatchResultCache matchResultCache;
+
+    @Autowired
+    private PairwiseScoreCache pairwiseScoreCache;
+
+    /**
+     * An instrumented operation (same checked exception as the matching services)
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run() throws IOException;
+    }
+
+    @PostConstruct
+    void registerCacheMeters() {
+        registerCache("match_results", matchResultCache, MatchResultCache::getHits, MatchResultCache::getMisses);
+        registerCache("pairwise_scores", pairwiseScoreCache, PairwiseScoreCache::getHits, PairwiseScoreCache::getMisses);
+    }
+
+    /**
+     * Time a whole public operation, tagging the outcome (success / failure)
+     */
+    public <T> T timeOperation(String operation, Operation<T> body) throws IOException {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = body.run();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("matching.operation")
+                .description("Latency of matching operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record one engine stage
+     *
+     * @param count Candidates (or embeddings) the stage produced
+     */
+    public void recordStage(String engine, String stage, long durationNanos, int count) {
+        Timer.builder("matching.stage")
+            .description("Latency of matching engine stages")
+            .tag("engine", engine)
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("matching.stage.candidates")
+            .description("Candidates produced by each matching stage")
+            .tag("engine", engine)
+            .tag("stage", stage)
+            .register(registry)
+            .record(count);
+    }
+
+    public void recordSkip(String engine, String reason) {
+        Counter.builder("matching.skipped")
+            .description("Candidates dropped during scoring")
+            .tag("engine", engine)
+            .tag("reason", reason)
+            .register(registry)
+            .increment();
+    }
+
+    private <C> void registerCache(String cache, C source, ToDoubleFunction<C> hits, ToDoubleFunction<C> misses) {
+        FunctionCounter.builder("matching.cache.requests", source, hits)
+            .tag("cache", cache)
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("matching.cache.requests", source, misses)
+            .tag("cache", cache)
+            .tag("result", "miss")
+            .register(registry);
+        Gauge.builder("matching.cache.hit.ratio", source, c -> {
+                double hitCount = hits.applyAsDouble(c);
+                double total = hitCount + misses.applyAsDouble(c);
+                return total == 0 ? 0.0 : hitCount / total;
+            })
+            .tag("cache", cache)
+            .register(registry);
+    }
+}
@@ -0,0 +1,207 @@
+package com.roommate.manager.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-repository-method Mongo metrics, fed by the driver's command and connection pool events
+ *
+ * Meters (all tagged with repository_method):
+ * - mongo.repository.command      latency histogram, also tagged command / collection / outcome
+ * - mongo.repository.documents    documents returned (cursor batch size or n)
+ * - mongo.repository.reply.bytes  reply size, when the driver hands the reply over as raw bytes
+ * - mongo.pool.wait               time spent waiting to check out a connection
+ *
+ * Commands slower than mongo.metrics.slow-query-ms are also logged at WARN.
+ */
+public class MongoCommandMetrics implements CommandListener, ConnectionPoolListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoCommandMetrics.class);
+
+    // Handshake / housekeeping commands the app never issues itself
+    private static final Set<String> IGNORED_COMMANDS = Set.of(
+        "hello", "ismaster", "isMaster", "buildInfo", "ping", "saslStart", "saslContinue", "endSessions", "killCursors"
+    );
+
+    private final MeterRegistry registry;
+    private final long slowQueryNanos;
+
+    // requestId -> collection of the in-flight command (requestIds are unique per client)
+    private final Map<Integer, String> inFlightCollections = new ConcurrentHashMap<>();
+
+    public MongoCommandMetrics(MeterRegistry registry, long slowQueryMs) {
+        this.registry = registry;
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMs);
+    }
+
+    // ========== COMMANDS ==========
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (IGNORED_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        BsonValue target = event.getCommand().get(event.getCommandName());
+        String collection = target != null && target.isString() ? target.asString().getValue() : "none";
+        inFlightCollections.put(event.getRequestId(), collection);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String collection = inFlightCollections.remove(event.getRequestId());
+        if (collection == null) {
+            return;
+        }
+
+        long durationNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        String method = RepositoryMethodTracker.current();
+        BsonDocument response = event.getResponse();
+        int documents = documentsReturned(response);
+
+        commandTimer(method, event.getCommandName(), collection, "success").record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("mongo.repository.documents")
+            .description("Documents returned per Mongo command")
+            .tag("repository_method", method)
+            .tag("command", event.getCommandName())
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(documents);
+
+        long replyBytes = replyBytes(response);
+        if (replyBytes >= 0) {
+            DistributionSummary.builder("mongo.repository.reply.bytes")
+                .description("Reply size per Mongo command")
+                .baseUnit("bytes")
+                .tag("repository_method", method)
+                .tag("command", event.getCommandName())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(replyBytes);
+        }
+
+        if (durationNanos >= slowQueryNanos) {
+            log.warn("🐢 SLOW MONGO: {} {} on {} took {}ms ({} docs)", method, event.getCommandName(), collection,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), documents);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        String collection = inFlightCollections.remove(event.getRequestId());
+        if (collection == null) {
+            return;
+        }
+
+        long durationNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        String method = RepositoryMethodTracker.current();
+        commandTimer(method, event.getCommandName(), collection, "failure").record(durationNanos, TimeUnit.NANOSECONDS);
+
+        if (durationNanos >= slowQueryNanos) {
+            log.warn("🐢 SLOW MONGO (failed): {} {} on {} took {}ms - {}", method, event.getCommandName(), collection,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), event.getThrowable().getMessage());
+        }
+    }
+
+    private Timer commandTimer(String method, String command, String collection, String outcome) {
+        return Timer.builder("mongo.repository.command")
+            .description("Mongo command latency by originating repository method")
+            .tag("repository_method", method)
+            .tag("command", command)
+            .tag("collection", collection)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    // ========== CONNECTION POOL ==========
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        recordPoolWait(event.getElapsedTime(TimeUnit.NANOSECONDS), "checked_out");
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        recordPoolWait(event.getElapsedTime(TimeUnit.NANOSECONDS), "failed");
+    }
+
+    private void recordPoolWait(long nanos, String outcome) {
+        Timer.builder("mongo.pool.wait")
+            .description("Time waiting for a pooled Mongo connection")
+            .tag("repository_method", RepositoryMethodTracker.current())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ========== REPLY INSPECTION ==========
+
+    /**
+     * Number of documents in a reply: the cursor batch for find/aggregate/getMore, otherwise n (count, updates, deletes)
+     */
+    private static int documentsReturned(BsonDocument response) {
+        if (response == null) {
+            return 0;
+        }
+        BsonDocument cursor = response.isDocument("cursor") ? response.getDocument("cursor") : null;
+        if (cursor != null) {
+            BsonArray batch = cursor.isArray("firstBatch") ? cursor.getArray("firstBatch")
+                : cursor.isArray("nextBatch") ? cursor.getArray("nextBatch") : null;
+            return batch != null ? batch.size() : 0;
+        }
+        BsonValue n = response.get("n");
+        return n != null && n.isNumber() ? n.asNumber().intValue() : 0;
+    }
+
+    /**
+     * Reply size, only from bytes already at hand - the whole reply when it is raw, otherwise the raw
+     * documents of the cursor batch. Decoded replies are never re-encoded just to be measured.
+     *
+     * @return -1 when the size isn't known
+     */
+    private static long replyBytes(BsonDocument response) {
+        if (response == null) {
+            return -1;
+        }
+        if (response instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+
+        BsonDocument cursor = response.isDocument("cursor") ? response.getDocument("cursor") : null;
+        BsonArray batch = cursor == null ? null
+            : cursor.isArray("firstBatch") ? cursor.getArray("firstBatch")
+            : cursor.isArray("nextBatch") ? cursor.getArray("nextBatch") : null;
+        if (batch == null || batch.isEmpty()) {
+            return -1;
+        }
+
+        long bytes = 0;
+        for (BsonValue document : batch) {
+            if (!(document instanceof RawBsonDocument raw)) {
+                return -1;
+            }
+            bytes += raw.getByteBuffer().remaining();
+        }
+        return bytes;
+    }
+}
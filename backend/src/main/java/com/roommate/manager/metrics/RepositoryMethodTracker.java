@@ -0,0 +1,50 @@
+package com.roommate.manager.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Remembers which repository method the current thread is executing
+ * The sync Mongo driver fires command and pool events on the calling thread, so
+ * MongoCommandMetrics can read this to attribute each command to e.g. "LikeRepository.findByToUserId"
+ */
+public class RepositoryMethodTracker implements MethodInterceptor {
+
+    // Commands issued outside the tracked repositories (MongoTemplate, other repositories) are tagged "other"
+    public static final String OTHER = "other";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final String repositoryName;
+
+    /**
+     * @param repositoryName Simple name of the repository interface - inherited methods like findById
+     *                       are reported under it rather than under CrudRepository
+     */
+    public RepositoryMethodTracker(String repositoryName) {
+        this.repositoryName = repositoryName;
+    }
+
+    /**
+     * @return "Repository.method" of the innermost repository call on this thread, or OTHER
+     */
+    public static String current() {
+        String method = CURRENT.get();
+        return method != null ? method : OTHER;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String previous = CURRENT.get();
+        CURRENT.set(repositoryName + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
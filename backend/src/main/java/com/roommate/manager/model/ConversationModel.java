@@ -13,6 +13,8 @@ import java.util.Map;
 
 @Document("conversations")
 @CompoundIndex(name = "user1_user2_idx", def = "{'user1Id': 1, 'user2Id': 1}", unique = true)
+// Second branch of findByUserId's $or (user1Id is covered by the prefix of user1_user2_idx)
+@CompoundIndex(name = "user2_idx", def = "{'user2Id': 1}")
 public class ConversationModel {
 
     @Id
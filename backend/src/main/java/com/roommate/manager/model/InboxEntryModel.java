@@ -0,0 +1,131 @@
+package com.roommate.manager.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's view of one conversation, denormalized for the conversation list
+ * Maintained by ChatService on send (preview, timestamp, recipient's unread +1) and read (unread -n),
+ * so listing a user's conversations is a single indexed scan instead of an $or over conversations
+ */
+@Document("inbox")
+// Conversation list keyset pagination: equality on userId, then (lastMessageTimestamp, _id) in sort order
+@CompoundIndex(name = "user_last_message_idx", def = "{'userId': 1, 'lastMessageTimestamp': -1, '_id': -1}")
+public class InboxEntryModel {
+
+    // Longest lastMessageContent kept in the preview
+    public static final int PREVIEW_LENGTH = 140;
+
+    @Id
+    private String id; // "<userId>:<conversationId>"
+
+    private String userId; // Owner of this inbox entry
+    private String conversationId;
+    private String otherUserId;
+
+    private String lastMessageContent; // Preview, at most PREVIEW_LENGTH characters
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private LocalDateTime lastMessageTimestamp;
+
+    private String lastMessageSenderId;
+
+    private int unreadCount; // Unread messages for userId in this conversation
+
+    // Default constructor
+    public InboxEntryModel() {
+    }
+
+    public static String idFor(String userId, String conversationId) {
+        return userId + ":" + conversationId;
+    }
+
+    public static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH);
+    }
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public String getOtherUserId() {
+        return otherUserId;
+    }
+
+    public void setOtherUserId(String otherUserId) {
+        this.otherUserId = otherUserId;
+    }
+
+    public String getLastMessageContent() {
+        return lastMessageContent;
+    }
+
+    public void setLastMessageContent(String lastMessageContent) {
+        this.lastMessageContent = lastMessageContent;
+    }
+
+    public LocalDateTime getLastMessageTimestamp() {
+        return lastMessageTimestamp;
+    }
+
+    public void setLastMessageTimestamp(LocalDateTime lastMessageTimestamp) {
+        this.lastMessageTimestamp = lastMessageTimestamp;
+    }
+
+    public String getLastMessageSenderId() {
+        return lastMessageSenderId;
+    }
+
+    public void setLastMessageSenderId(String lastMessageSenderId) {
+        this.lastMessageSenderId = lastMessageSenderId;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    @Override
+    public String toString() {
+        return "InboxEntryModel{" +
+                "id='" + id + '\'' +
+                ", userId='" + userId + '\'' +
+                ", conversationId='" + conversationId + '\'' +
+                ", otherUserId='" + otherUserId + '\'' +
+                ", lastMessageTimestamp=" + lastMessageTimestamp +
+                ", unreadCount=" + unreadCount +
+                '}';
+    }
+}
@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 
 @Document("likes")
 @CompoundIndex(name = "from_to_idx", def = "{'fromUserId': 1, 'toUserId': 1}", unique = true)
+// Received likes (findByToUserId)
+@CompoundIndex(name = "to_from_idx", def = "{'toUserId': 1, 'fromUserId': 1}")
 public class LikeModel {
 
     @Id
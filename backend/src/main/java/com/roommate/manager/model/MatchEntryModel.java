@@ -0,0 +1,80 @@
+package com.roommate.manager.model;
+
+/**
+ * One ranked candidate inside a materialized match list
+ * Scores are always from the point of view of the list owner
+ */
+public class MatchEntryModel {
+
+    private String candidateUserId;
+    private double forwardScore;   // How well the candidate satisfies the owner's preferences
+    private double reverseScore;   // How well the owner satisfies the candidate's preferences
+    private double mutualScore;
+    private double attributeScore;
+    private double embeddingScore;
+
+    // Default constructor
+    public MatchEntryModel() {
+    }
+
+    // Parameterized constructor
+    public MatchEntryModel(String candidateUserId, double forwardScore, double reverseScore,
+                           double mutualScore, double attributeScore, double embeddingScore) {
+        this.candidateUserId = candidateUserId;
+        this.forwardScore = forwardScore;
+        this.reverseScore = reverseScore;
+        this.mutualScore = mutualScore;
+        this.attributeScore = attributeScore;
+        this.embeddingScore = embeddingScore;
+    }
+
+    // Getters and Setters
+
+    public String getCandidateUserId() {
+        return candidateUserId;
+    }
+
+    public void setCandidateUserId(String candidateUserId) {
+        this.candidateUserId = candidateUserId;
+    }
+
+    public double getForwardScore() {
+        return forwardScore;
+    }
+
+    public void setForwardScore(double forwardScore) {
+        this.forwardScore = forwardScore;
+    }
+
+    public double getReverseScore() {
+        return reverseScore;
+    }
+
+    public void setReverseScore(double reverseScore) {
+        this.reverseScore = reverseScore;
+    }
+
+    public double getMutualScore() {
+        return mutualScore;
+    }
+
+    public void setMutualScore(double mutualScore) {
+        this.mutualScore = mutualScore;
+    }
+
+    public double getAttributeScore() {
+        return attributeScore;
+    }
+
+    public void setAttributeScore(double attributeScore) {
+        this.attributeScore = attributeScore;
+    }
+
+    public double getEmbeddingScore() {
+        return embeddingScore;
+    }
+
+    public void setEmbeddingScore(double embeddingScore) {
+        this.embeddingScore = embeddingScore;
+    }
+}
@@ -0,0 +1,32 @@
+package com.roommate.manager.model;
+
+import java.time.LocalDate;
+
+/**
+ * The fields the matching engine reads from a user
+ * Implemented by the full UserModel and by the slim MatchingProfileModel projection
+ */
+public interface MatchableProfile {
+
+    String getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getGender();
+
+    LocalDate getDateOfBirth();
+
+    String getZipCode();
+
+    String getCityCode();
+
+    Integer getZipNumber();
+
+    BudgetModel getBudget();
+
+    LifestyleModel getLifestyle();
+
+    PreferenceModel getPreferences();
+}
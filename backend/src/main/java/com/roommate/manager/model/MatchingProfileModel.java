@@ -0,0 +1,140 @@
+package com.roommate.manager.model;
+
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only projection of a "users" document with just the fields needed to score a candidate
+ * Skips free text (moreAboutMe), image URLs, email and audit fields - the full UserModel is
+ * only loaded for the matches actually returned to the client
+ */
+public class MatchingProfileModel implements MatchableProfile {
+
+    // Fields to include in the Mongo projection (_id is always returned)
+    public static final List<String> PROJECTED_FIELDS = List.of(
+        "firstName", "lastName", "gender", "dateOfBirth", "zipCode", "cityCode", "zipNumber",
+        "budget", "lifestyle", "preferences"
+    );
+
+    @Id
+    private String id;
+
+    private String firstName;
+    private String lastName;
+    private String gender;
+    private LocalDate dateOfBirth;
+    private String zipCode;
+    private String cityCode;
+    private Integer zipNumber;
+
+    private BudgetModel budget;
+    private LifestyleModel lifestyle;
+    private PreferenceModel preferences;
+
+    // Default constructor
+    public MatchingProfileModel() {
+    }
+
+    // Getters and Setters
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    @Override
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    @Override
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    @Override
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(LocalDate dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    @Override
+    public String getZipCode() {
+        return zipCode;
+    }
+
+    public void setZipCode(String zipCode) {
+        this.zipCode = zipCode;
+    }
+
+    @Override
+    public String getCityCode() {
+        return cityCode != null ? cityCode : ZipCodes.cityCode(zipCode);
+    }
+
+    public void setCityCode(String cityCode) {
+        this.cityCode = cityCode;
+    }
+
+    @Override
+    public Integer getZipNumber() {
+        return zipNumber != null ? zipNumber : ZipCodes.zipNumber(zipCode);
+    }
+
+    public void setZipNumber(Integer zipNumber) {
+        this.zipNumber = zipNumber;
+    }
+
+    @Override
+    public BudgetModel getBudget() {
+        return budget;
+    }
+
+    public void setBudget(BudgetModel budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public LifestyleModel getLifestyle() {
+        return lifestyle;
+    }
+
+    public void setLifestyle(LifestyleModel lifestyle) {
+        this.lifestyle = lifestyle;
+    }
+
+    @Override
+    public PreferenceModel getPreferences() {
+        return preferences;
+    }
+
+    public void setPreferences(PreferenceModel preferences) {
+        this.preferences = preferences;
+    }
+}
@@ -10,8 +10,11 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 
 @Document("messages")
-@CompoundIndex(name = "conversation_timestamp_idx", def = "{'conversationId': 1, 'timestamp': -1}")
+// History keyset pagination: equality on conversationId, then (timestamp, _id) in sort order
+@CompoundIndex(name = "conversation_timestamp_id_idx", def = "{'conversationId': 1, 'timestamp': -1, '_id': -1}")
 @CompoundIndex(name = "conversation_read_idx", def = "{'conversationId': 1, 'isRead': 1}")
+// Unread counts and mark-as-read for one recipient
+@CompoundIndex(name = "conversation_recipient_read_idx", def = "{'conversationId': 1, 'recipientId': 1, 'isRead': 1}")
 public class MessageModel {
 
     @Id
@@ -0,0 +1,49 @@
+package com.roommate.manager.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A user's unread message count across all conversations
+ * Only ever changed with $inc (UnreadTotalService), never saved as a whole document
+ */
+@Document("unread_totals")
+public class UnreadTotalModel {
+
+    @Id
+    private String id; // Same as the userId
+
+    private long total;
+
+    private long seq; // Bumped by every $inc of total; orders totals that arrive out of order
+
+    // Default constructor
+    public UnreadTotalModel() {
+    }
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+}
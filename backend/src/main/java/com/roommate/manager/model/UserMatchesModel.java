@@ -0,0 +1,83 @@
+package com.roommate.manager.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materialized mutual-match list for one user
+ * Filled by MatchMaterializationService in the background so the matches page
+ * is served with a single _id lookup instead of a full Vertex AI round
+ */
+@Document("user_matches")
+// Reverse-dependency index: which users currently have a given candidate in their top-N
+@CompoundIndex(name = "matches_candidate_idx", def = "{'matches.candidateUserId': 1}")
+public class UserMatchesModel {
+
+    @Id
+    private String id; // Same as the owner's userId
+
+    // Ranked by mutualScore, highest first
+    private List<MatchEntryModel> matches = new ArrayList<>();
+
+    // Incremented on every write so clients can tell whether their copy is stale
+    private long version;
+
+    @Indexed
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private LocalDateTime computedAt;
+
+    // Default constructor
+    public UserMatchesModel() {
+    }
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<MatchEntryModel> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<MatchEntryModel> matches) {
+        this.matches = matches;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UserMatchesModel{" +
+                "id='" + id + '\'' +
+                ", matches=" + matches.size() +
+                ", version=" + version +
+                ", computedAt=" + computedAt +
+                '}';
+    }
+}
@@ -3,14 +3,17 @@ package com.roommate.manager.model;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
+import java.time.temporal.ChronoUnit;
 
 @Document("users")
-public class UserModel {
+@CompoundIndex(name = "city_gender_idx", def = "{'cityCode': 1, 'gender': 1}")
+public class UserModel implements MatchableProfile {
 
     @Id
     private String id; // This will be the Clerk user ID
@@ -27,6 +30,10 @@ public class UserModel {
     private String profileImageUrl;
     private String zipCode;
     private String city;
+
+    // Derived from zipCode whenever it is set and again before every save - never written by clients
+    private String cityCode;
+    private Integer zipNumber;
     private String moreAboutMe; // Free-form text for additional personal information
 
     private BudgetModel budget;
@@ -37,7 +44,7 @@ public class UserModel {
     private LocalDateTime createdAt;
 
     @LastModifiedDate
-    private LocalDateTime lastUpdatedAt;
+    private LocalDateTime lastUpdatedAt; // Set on every save (markUpdated) - also the profile version for cached scores
 
     // Getters and Setters
 
@@ -103,6 +110,37 @@ public class UserModel {
     }
     public void setZipCode(String zipCode) {
         this.zipCode = zipCode;
+        refreshLocation();
+    }
+
+    // Documents saved before these fields existed fall back to deriving from zipCode
+    public String getCityCode() {
+        return cityCode != null ? cityCode : ZipCodes.cityCode(zipCode);
+    }
+
+    public Integer getZipNumber() {
+        return zipNumber != null ? zipNumber : ZipCodes.zipNumber(zipCode);
+    }
+
+    /**
+     * Recompute cityCode and zipNumber from zipCode
+     */
+    public void refreshLocation() {
+        this.cityCode = ZipCodes.cityCode(zipCode);
+        this.zipNumber = ZipCodes.zipNumber(zipCode);
+    }
+
+    /**
+     * Stamp a save with the server time, replacing whatever the client sent
+     * At millisecond precision (what Mongo keeps) the stamp always differs from the previous one,
+     * even when two saves land in the same millisecond
+     */
+    public void markUpdated(LocalDateTime now) {
+        LocalDateTime stamp = now.truncatedTo(ChronoUnit.MILLIS);
+        if (lastUpdatedAt != null && stamp.equals(lastUpdatedAt.truncatedTo(ChronoUnit.MILLIS))) {
+            stamp = stamp.plus(1, ChronoUnit.MILLIS);
+        }
+        this.lastUpdatedAt = stamp;
     }
 
     public String getCity() {
@@ -0,0 +1,42 @@
+package com.roommate.manager.model;
+
+/**
+ * Normalized location values derived from a zip code
+ * Stored on each user (cityCode, zipNumber) so matching never re-parses the zip string
+ */
+public final class ZipCodes {
+
+    private ZipCodes() {
+    }
+
+    /**
+     * City code = first 3 digits of the zip code
+     * In US zipcodes, the first 3 digits represent the sectional center facility (roughly a city/metro area)
+     */
+    public static String cityCode(String zipCode) {
+        if (zipCode == null || zipCode.length() < 3) {
+            return null;
+        }
+        return zipCode.substring(0, 3);
+    }
+
+    /**
+     * Numeric value of the 5-digit zip (ZIP+4 suffixes are ignored), used for proximity scoring
+     *
+     * @return null when the zip code doesn't start with 5 digits
+     */
+    public static Integer zipNumber(String zipCode) {
+        if (zipCode == null || zipCode.length() < 5) {
+            return null;
+        }
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            char c = zipCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,38 @@
+package com.roommate.manager.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.roommate.manager.model.InboxEntryModel;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One entry of the conversation list, in the shape clients know from ConversationModel
+ * Built from the owner's inbox entry - unreadCounts only carries the owner's count
+ *
+ * @param id Conversation ID ("userId1_userId2")
+ */
+public record ConversationSummary(
+        String id,
+        String user1Id,
+        String user2Id,
+        String lastMessageContent,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+        LocalDateTime lastMessageTimestamp,
+        String lastMessageSenderId,
+        Map<String, Integer> unreadCounts
+) {
+
+    public static ConversationSummary from(InboxEntryModel entry) {
+        boolean ownerFirst = entry.getUserId().compareTo(entry.getOtherUserId()) <= 0;
+        return new ConversationSummary(
+            entry.getConversationId(),
+            ownerFirst ? entry.getUserId() : entry.getOtherUserId(),
+            ownerFirst ? entry.getOtherUserId() : entry.getUserId(),
+            entry.getLastMessageContent(),
+            entry.getLastMessageTimestamp(),
+            entry.getLastMessageSenderId(),
+            Map.of(entry.getUserId(), entry.getUnreadCount())
+        );
+    }
+}
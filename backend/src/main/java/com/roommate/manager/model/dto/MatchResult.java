@@ -0,0 +1,65 @@
+package com.roommate.manager.model.dto;
+
+import com.roommate.manager.model.MatchEntryModel;
+import com.roommate.manager.model.MatchableProfile;
+import com.roommate.manager.model.UserModel;
+
+import java.util.Map;
+
+/**
+ * One scored match as returned by the matching endpoints
+ * Field names match the original map-based responses, so clients are unaffected
+ *
+ * @param description Text summary of the candidate - only the legacy hybrid engine fills it (otherwise null and omitted)
+ */
+public record MatchResult(
+        String userId,
+        PublicProfile user,
+        double forwardScore,
+        double reverseScore,
+        double mutualScore,
+        double attributeScore,
+        double embeddingScore,
+        String description
+) {
+
+    public MatchResult withDescription(String description) {
+        return new MatchResult(userId, user, forwardScore, reverseScore, mutualScore, attributeScore, embeddingScore, description);
+    }
+
+    public MatchResult withUser(PublicProfile user) {
+        return new MatchResult(userId, user, forwardScore, reverseScore, mutualScore, attributeScore, embeddingScore, description);
+    }
+
+    /**
+     * Build from a materialized entry and its hydrated user
+     */
+    public static MatchResult of(MatchEntryModel entry, UserModel user) {
+        return new MatchResult(
+            entry.getCandidateUserId(),
+            PublicProfile.from(user),
+            entry.getForwardScore(),
+            entry.getReverseScore(),
+            entry.getMutualScore(),
+            entry.getAttributeScore(),
+            entry.getEmbeddingScore(),
+            null
+        );
+    }
+
+    /**
+     * Build from a result map produced by one of the matching engines
+     */
+    public static MatchResult from(Map<String, Object> match) {
+        return new MatchResult(
+            (String) match.get("userId"),
+            PublicProfile.from((MatchableProfile) match.get("user")),
+            (double) match.get("forwardScore"),
+            (double) match.get("reverseScore"),
+            (double) match.get("mutualScore"),
+            (double) match.get("attributeScore"),
+            (double) match.get("embeddingScore"),
+            (String) match.get("description")
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.roommate.manager.model.dto;
+
+import com.roommate.manager.model.BudgetModel;
+import com.roommate.manager.model.LifestyleModel;
+import com.roommate.manager.model.MatchableProfile;
+import com.roommate.manager.model.UserModel;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The part of a user shown on a match card
+ * Leaves out email, preferences and audit fields that the full UserModel would leak
+ */
+public record PublicProfile(
+        String id,
+        String firstName,
+        String lastName,
+        LocalDate dateOfBirth,
+        String gender,
+        String profileImageUrl,
+        String zipCode,
+        String moreAboutMe,
+        BudgetModel budget,
+        LifestyleModel lifestyle,
+        LocalDateTime lastUpdatedAt
+) {
+
+    // The card fields the slim matching projection doesn't load (see withCardFields)
+    public static final String[] CARD_FIELDS = {"profileImageUrl", "moreAboutMe", "lastUpdatedAt"};
+
+    /**
+     * From a slim matching projection, the image, about-me text and timestamp aren't loaded and stay null
+     */
+    public static PublicProfile from(MatchableProfile profile) {
+        if (profile instanceof UserModel user) {
+            return from(user);
+        }
+        return new PublicProfile(
+            profile.getId(),
+            profile.getFirstName(),
+            profile.getLastName(),
+            profile.getDateOfBirth(),
+            profile.getGender(),
+            null,
+            profile.getZipCode(),
+            null,
+            profile.getBudget(),
+            profile.getLifestyle(),
+            null
+        );
+    }
+
+    /**
+     * Fill in the card fields from a user loaded with the CARD_FIELDS projection
+     */
+    public PublicProfile withCardFields(UserModel card) {
+        return new PublicProfile(id, firstName, lastName, dateOfBirth, gender, card.getProfileImageUrl(),
+            zipCode, card.getMoreAboutMe(), budget, lifestyle, card.getLastUpdatedAt());
+    }
+
+    public static PublicProfile from(UserModel user) {
+        return new PublicProfile(
+            user.getId(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getDateOfBirth(),
+            user.getGender(),
+            user.getProfileImageUrl(),
+            user.getZipCode(),
+            user.getMoreAboutMe(),
+            user.getBudget(),
+            user.getLifestyle(),
+            user.getLastUpdatedAt()
+        );
+    }
+}
@@ -15,6 +15,8 @@ public class MessageEvent {
     private String senderId;
     private String recipientId;
     private String content;
+    private Long recipientUnreadTotal; // Recipient's total unread count after this message (null on older events)
+    private Long recipientUnreadSeq; // Seq of that total, orders totals that arrive out of order (null on older events)
 
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -78,6 +80,22 @@ public class MessageEvent {
         this.content = content;
     }
 
+    public Long getRecipientUnreadTotal() {
+        return recipientUnreadTotal;
+    }
+
+    public void setRecipientUnreadTotal(Long recipientUnreadTotal) {
+        this.recipientUnreadTotal = recipientUnreadTotal;
+    }
+
+    public Long getRecipientUnreadSeq() {
+        return recipientUnreadSeq;
+    }
+
+    public void setRecipientUnreadSeq(Long recipientUnreadSeq) {
+        this.recipientUnreadSeq = recipientUnreadSeq;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -14,6 +14,15 @@ public class MessageReadEvent {
     private List<String> messageIds; // Support batch marking as read
     private String conversationId;
     private String userId; // Who marked as read
+    private String senderId; // Whose messages were read (null on events from older producers)
+    private Long unreadTotal; // Reader's total unread count afterwards (null on events from older producers)
+    private Long unreadSeq; // Seq of that total, orders totals that arrive out of order (null on events from older producers)
+
+    // Set instead of messageIds when everything up to this timestamp was marked read
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private LocalDateTime upTo;
 
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -59,6 +68,38 @@ public class MessageReadEvent {
         this.userId = userId;
     }
 
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(String senderId) {
+        this.senderId = senderId;
+    }
+
+    public Long getUnreadTotal() {
+        return unreadTotal;
+    }
+
+    public void setUnreadTotal(Long unreadTotal) {
+        this.unreadTotal = unreadTotal;
+    }
+
+    public Long getUnreadSeq() {
+        return unreadSeq;
+    }
+
+    public void setUnreadSeq(Long unreadSeq) {
+        this.unreadSeq = unreadSeq;
+    }
+
+    public LocalDateTime getUpTo() {
+        return upTo;
+    }
+
+    public void setUpTo(LocalDateTime upTo) {
+        this.upTo = upTo;
+    }
+
     public LocalDateTime getReadAt() {
         return readAt;
     }
@@ -73,6 +114,8 @@ public class MessageReadEvent {
                 "messageIds=" + messageIds +
                 ", conversationId='" + conversationId + '\'' +
                 ", userId='" + userId + '\'' +
+                ", senderId='" + senderId + '\'' +
+                ", upTo=" + upTo +
                 ", readAt=" + readAt +
                 '}';
     }
@@ -10,11 +10,6 @@ import java.util.List;
 @Repository
 public interface MessageRepository extends MongoRepository<MessageModel, String> {
 
-    /**
-     * Get message history for a conversation (sorted by timestamp ascending)
-     */
-    List<MessageModel> findByConversationIdOrderByTimestampAsc(String conversationId);
-
     /**
      * Count unread messages for a specific user in a conversation
      */
@@ -0,0 +1,9 @@
+package com.roommate.manager.repository;
+
+import com.roommate.manager.model.UserMatchesModel;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserMatchesRepository extends MongoRepository<UserMatchesModel, String> {
+}
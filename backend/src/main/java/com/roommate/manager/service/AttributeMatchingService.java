@@ -1,6 +1,7 @@
 package com.roommate.manager.service;
 
-import com.roommate.manager.model.UserModel;
+import com.roommate.manager.logging.MatchTrace;
+import com.roommate.manager.model.MatchableProfile;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -22,7 +23,7 @@ public class AttributeMatchingService {
      * @param userB The candidate being evaluated
      * @return Compatibility score (0.0 to 1.0)
      */
-    public double calculateCompatibilityScore(UserModel userA, UserModel userB) {
+    public double calculateCompatibilityScore(MatchableProfile userA, MatchableProfile userB) {
         double ageScore = calculateAgeMatch(userA, userB);
         double genderScore = calculateGenderMatch(userA, userB);
         double lifestyleScore = calculateLifestyleMatch(userA, userB);
@@ -42,23 +43,25 @@ public class AttributeMatchingService {
      * Check if two users meet hard requirements (must pass all filters)
      * Hard requirements: Gender + Same City (location)
      */
-    public boolean meetsHardRequirements(UserModel userA, UserModel userB) {
+    public boolean meetsHardRequirements(MatchableProfile userA, MatchableProfile userB) {
         boolean passesGender = passesGenderRequirement(userA, userB);
         boolean passesLocation = passesCityRequirement(userA, userB);
 
-        System.out.println("    Checking " + userA.getFirstName() + "'s requirements for " + userB.getFirstName() + ":");
-        System.out.println("      Gender: " + (passesGender ? "✓" : "✗"));
-        System.out.println("      Location (Same City): " + (passesLocation ? "✓" : "✗"));
+        // Called twice per candidate - detail only for traced users
+        if (MatchTrace.enabled()) {
+            MatchTrace.LOG.info("Checking {}'s requirements for {}: gender {}, same city {}",
+                userA.getFirstName(), userB.getFirstName(), passesGender ? "✓" : "✗", passesLocation ? "✓" : "✗");
 
-        if (!passesGender) {
-            System.out.println("      ❌ Failed Gender: " + userA.getFirstName() + " wants " +
-                (userA.getPreferences() != null && userA.getPreferences().getGender() != null ? userA.getPreferences().getGender() : "any") +
-                ", " + userB.getFirstName() + " is " + (userB.getGender() != null ? userB.getGender() : "unknown"));
-        }
+            if (!passesGender) {
+                MatchTrace.LOG.info("❌ Failed Gender: {} wants {}, {} is {}", userA.getFirstName(),
+                    userA.getPreferences() != null && userA.getPreferences().getGender() != null ? userA.getPreferences().getGender() : "any",
+                    userB.getFirstName(), userB.getGender() != null ? userB.getGender() : "unknown");
+            }
 
-        if (!passesLocation) {
-            System.out.println("      ❌ Failed Location: " + userA.getFirstName() + " is in city " +
-                getCityCode(userA.getZipCode()) + ", " + userB.getFirstName() + " is in city " + getCityCode(userB.getZipCode()));
+            if (!passesLocation) {
+                MatchTrace.LOG.info("❌ Failed Location: {} is in city {}, {} is in city {}",
+                    userA.getFirstName(), userA.getCityCode(), userB.getFirstName(), userB.getCityCode());
+            }
         }
 
         return passesGender && passesLocation;
@@ -67,32 +70,21 @@ public class AttributeMatchingService {
     /**
      * Check if two users are in the same city (based on first 3 digits of zipcode)
      */
-    private boolean passesCityRequirement(UserModel userA, UserModel userB) {
+    private boolean passesCityRequirement(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getZipCode() == null || userB.getZipCode() == null) {
             return false; // Require both users to have zipcode set
         }
 
-        String cityA = getCityCode(userA.getZipCode());
-        String cityB = getCityCode(userB.getZipCode());
+        String cityA = userA.getCityCode();
+        String cityB = userB.getCityCode();
 
         return cityA != null && cityB != null && cityA.equals(cityB);
     }
 
-    /**
-     * Extract city code from zipcode (first 3 digits)
-     * In US zipcodes, the first 3 digits represent the sectional center facility (roughly a city/metro area)
-     */
-    private String getCityCode(String zipCode) {
-        if (zipCode == null || zipCode.length() < 3) {
-            return null;
-        }
-        return zipCode.substring(0, 3);
-    }
-
     /**
      * Calculate bidirectional mutual score
      */
-    public double calculateMutualScore(UserModel userA, UserModel userB) {
+    public double calculateMutualScore(MatchableProfile userA, MatchableProfile userB) {
         double aWantsB = calculateCompatibilityScore(userA, userB);
         double bWantsA = calculateCompatibilityScore(userB, userA);
         return (aWantsB + bWantsA) / 2.0;
@@ -100,7 +92,7 @@ public class AttributeMatchingService {
 
     // ========== AGE MATCHING ==========
 
-    private boolean passesAgeRequirement(UserModel userA, UserModel userB) {
+    private boolean passesAgeRequirement(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getPreferences() == null) return true;
 
         int ageBInYears = calculateAge(userB.getDateOfBirth());
@@ -113,7 +105,7 @@ public class AttributeMatchingService {
         return true;
     }
 
-    private double calculateAgeMatch(UserModel userA, UserModel userB) {
+    private double calculateAgeMatch(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getPreferences() == null) return 1.0;
 
         int ageBInYears = calculateAge(userB.getDateOfBirth());
@@ -172,7 +164,7 @@ public class AttributeMatchingService {
 
     // ========== GENDER MATCHING ==========
 
-    private boolean passesGenderRequirement(UserModel userA, UserModel userB) {
+    private boolean passesGenderRequirement(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getPreferences() == null || userA.getPreferences().getGender() == null) {
             return true;
         }
@@ -188,13 +180,13 @@ public class AttributeMatchingService {
         return userB.getGender().toLowerCase().equals(preferredGender);
     }
 
-    private double calculateGenderMatch(UserModel userA, UserModel userB) {
+    private double calculateGenderMatch(MatchableProfile userA, MatchableProfile userB) {
         return passesGenderRequirement(userA, userB) ? 1.0 : 0.0;
     }
 
     // ========== LIFESTYLE MATCHING ==========
 
-    private boolean passesLifestyleRequirements(UserModel userA, UserModel userB) {
+    private boolean passesLifestyleRequirements(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getPreferences() == null || userB.getLifestyle() == null) {
             return true;
         }
@@ -222,7 +214,7 @@ public class AttributeMatchingService {
         return true;
     }
 
-    private double calculateLifestyleMatch(UserModel userA, UserModel userB) {
+    private double calculateLifestyleMatch(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getPreferences() == null || userB.getLifestyle() == null) {
             return 0.5; // Neutral score if data missing
         }
@@ -320,7 +312,7 @@ public class AttributeMatchingService {
 
     // ========== BUDGET MATCHING ==========
 
-    private double calculateBudgetOverlap(UserModel userA, UserModel userB) {
+    private double calculateBudgetOverlap(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getBudget() == null || userB.getBudget() == null) {
             return 0.5; // Neutral if budget not specified
         }
@@ -357,7 +349,7 @@ public class AttributeMatchingService {
      * Within same city, proximity is based on the numeric difference in zipcodes.
      * Smaller difference = higher score (closer neighborhoods)
      */
-    private double calculateLocationMatch(UserModel userA, UserModel userB) {
+    private double calculateLocationMatch(MatchableProfile userA, MatchableProfile userB) {
         if (userA.getZipCode() == null || userB.getZipCode() == null) {
             return 0.1; // Very low score if location not specified
         }
@@ -371,8 +363,8 @@ public class AttributeMatchingService {
         }
 
         // Check if same city (first 3 digits)
-        String cityA = getCityCode(zipA);
-        String cityB = getCityCode(zipB);
+        String cityA = userA.getCityCode();
+        String cityB = userB.getCityCode();
 
         if (cityA == null || cityB == null || !cityA.equals(cityB)) {
             // Different cities - should be filtered by hard requirements
@@ -381,42 +373,40 @@ public class AttributeMatchingService {
         }
 
         // Same city, different zipcode - score based on proximity
-        // Extract numeric values from zipcodes for distance calculation
-        try {
-            int zipNumA = Integer.parseInt(zipA.replaceAll("[^0-9]", ""));
-            int zipNumB = Integer.parseInt(zipB.replaceAll("[^0-9]", ""));
-
-            int distance = Math.abs(zipNumA - zipNumB);
-
-            // Proximity scoring within same city:
-            // - Distance 0-10: Score 0.90-1.00 (very close, adjacent neighborhoods)
-            // - Distance 11-50: Score 0.75-0.89 (nearby areas)
-            // - Distance 51-100: Score 0.60-0.74 (same city, farther apart)
-            // - Distance 100+: Score 0.50-0.59 (same city, opposite ends)
-
-            double score;
-            if (distance <= 10) {
-                // Very close zipcodes - linear scale from 0.90 to 1.0
-                score = 1.0 - (distance * 0.01);
-            } else if (distance <= 50) {
-                // Nearby - score from 0.75 to 0.89
-                score = 0.89 - ((distance - 10) * 0.0035);
-            } else if (distance <= 100) {
-                // Same city, farther - score from 0.60 to 0.74
-                score = 0.74 - ((distance - 50) * 0.0028);
-            } else {
-                // Same city, far apart - score from 0.50 to 0.59
-                // Cap at distance 200 for score calculation
-                int cappedDistance = Math.min(distance, 200);
-                score = 0.59 - ((cappedDistance - 100) * 0.0009);
-            }
-
-            // Ensure minimum score of 0.50 for same city
-            return Math.max(0.50, score);
-
-        } catch (NumberFormatException e) {
-            // If zipcode parsing fails, give neutral same-city score
+        // Numeric zip values are precomputed on save
+        Integer zipNumA = userA.getZipNumber();
+        Integer zipNumB = userB.getZipNumber();
+        if (zipNumA == null || zipNumB == null) {
+            // Non-numeric zipcode, give neutral same-city score
             return 0.70;
         }
+
+        int distance = Math.abs(zipNumA - zipNumB);
+
+        // Proximity scoring within same city:
+        // - Distance 0-10: Score 0.90-1.00 (very close, adjacent neighborhoods)
+        // - Distance 11-50: Score 0.75-0.89 (nearby areas)
+        // - Distance 51-100: Score 0.60-0.74 (same city, farther apart)
+        // - Distance 100+: Score 0.50-0.59 (same city, opposite ends)
+
+        double score;
+        if (distance <= 10) {
+            // Very close zipcodes - linear scale from 0.90 to 1.0
+            score = 1.0 - (distance * 0.01);
+        } else if (distance <= 50) {
+            // Nearby - score from 0.75 to 0.89
+            score = 0.89 - ((distance - 10) * 0.0035);
+        } else if (distance <= 100) {
+            // Same city, farther - score from 0.60 to 0.74
+            score = 0.74 - ((distance - 50) * 0.0028);
+        } else {
+            // Same city, far apart - score from 0.50 to 0.59
+            // Cap at distance 200 for score calculation
+            int cappedDistance = Math.min(distance, 200);
+            score = 0.59 - ((cappedDistance - 100) * 0.0009);
+        }
+
+        // Ensure minimum score of 0.50 for same city
+        return Math.max(0.50, score);
     }
 }
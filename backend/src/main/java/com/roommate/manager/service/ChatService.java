@@ -1,16 +1,21 @@
 package com.roommate.manager.service;
 
 import com.roommate.manager.model.ConversationModel;
+import com.roommate.manager.model.InboxEntryModel;
 import com.roommate.manager.model.MessageModel;
-import com.roommate.manager.repository.ConversationRepository;
 import com.roommate.manager.repository.LikeRepository;
 import com.roommate.manager.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Predicate;
 
 @Service
 public class ChatService {
@@ -19,10 +24,22 @@ public class ChatService {
     private MessageRepository messageRepository;
 
     @Autowired
-    private ConversationRepository conversationRepository;
+    private LikeRepository likeRepository;
 
     @Autowired
-    private LikeRepository likeRepository;
+    private MatchStateCache matchStateCache;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private UnreadTotalService unreadTotalService;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
 
     /**
      * Generate conversation ID from two user IDs (alphabetically sorted)
@@ -35,124 +52,216 @@ public class ChatService {
 
     /**
      * Validate that two users are matched (mutual likes exist)
+     * Served from MatchStateCache; a miss checks both likes (the second only if the first exists)
      */
     public boolean areUsersMatched(String userId1, String userId2) {
-        boolean like1to2 = likeRepository.existsByFromUserIdAndToUserId(userId1, userId2);
-        boolean like2to1 = likeRepository.existsByFromUserIdAndToUserId(userId2, userId1);
-        return like1to2 && like2to1;
+        return matchStateCache.isMatched(userId1, userId2, () ->
+                likeRepository.existsByFromUserIdAndToUserId(userId1, userId2)
+                        && likeRepository.existsByFromUserIdAndToUserId(userId2, userId1));
     }
 
     /**
-     * Get or create conversation between two users
+     * A saved message plus the recipient's new total unread count
      */
-    @Transactional
-    public ConversationModel getOrCreateConversation(String userId1, String userId2) {
-        String conversationId = generateConversationId(userId1, userId2);
-
-        // Check if conversation exists
-        Optional<ConversationModel> existing = conversationRepository.findById(conversationId);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
+    public record SentMessage(MessageModel message, UnreadTotalService.UnreadTotal recipientUnreadTotal) {
+    }
 
-        // Create new conversation
-        List<String> sorted = Arrays.asList(userId1, userId2);
+    /**
+     * Save message, upsert its conversation and both participants' inbox entries
+     * The conversation is created on the first message ($setOnInsert); the last-message timestamp and
+     * the recipient's unread counter are updated in the same single update ($max / $inc), so
+     * concurrent sends can't lose increments the way a read-modify-write of unreadCounts did.
+     * The timestamp only moves forward; the preview and sender are set afterwards only while this
+     * message is still the newest, so sends finishing out of order can't roll the conversation back.
+     */
+    public SentMessage saveMessage(MessageModel message) {
+        MessageModel savedMessage = messageRepository.insert(message);
+
+        List<String> sorted = Arrays.asList(message.getSenderId(), message.getRecipientId());
         Collections.sort(sorted);
+        LocalDateTime now = LocalDateTime.now();
 
-        ConversationModel conversation = new ConversationModel();
-        conversation.setId(conversationId);
-        conversation.setUser1Id(sorted.get(0));
-        conversation.setUser2Id(sorted.get(1));
+        Update update = new Update()
+                .setOnInsert("user1Id", sorted.get(0))
+                .setOnInsert("user2Id", sorted.get(1))
+                .setOnInsert("unreadCounts." + message.getSenderId(), 0)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("lastMessageContent", message.getContent())
+                .setOnInsert("lastMessageSenderId", message.getSenderId())
+                .max("lastMessageTimestamp", message.getTimestamp())
+                .set("updatedAt", now)
+                .inc("unreadCounts." + message.getRecipientId(), 1);
 
-        Map<String, Integer> unreadCounts = new HashMap<>();
-        unreadCounts.put(userId1, 0);
-        unreadCounts.put(userId2, 0);
-        conversation.setUnreadCounts(unreadCounts);
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(message.getConversationId())),
+                update,
+                ConversationModel.class
+        );
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(message.getConversationId())
+                        .and("lastMessageTimestamp").is(message.getTimestamp())),
+                new Update()
+                        .set("lastMessageContent", message.getContent())
+                        .set("lastMessageSenderId", message.getSenderId()),
+                ConversationModel.class
+        );
+        inboxService.recordMessage(message);
+        recentMessageCache.append(savedMessage);
+        UnreadTotalService.UnreadTotal recipientUnreadTotal = unreadTotalService.add(message.getRecipientId(), 1);
 
-        return conversationRepository.save(conversation);
+        return new SentMessage(savedMessage, recipientUnreadTotal);
     }
 
     /**
-     * Save message and update conversation metadata
+     * One page of chat history, oldest first within the page
+     * @param before Cursor for the next (older) page, null once the start of the conversation is reached
      */
-    @Transactional
-    public MessageModel saveMessage(MessageModel message) {
-        // Save message
-        MessageModel savedMessage = messageRepository.save(message);
-
-        // Update conversation
-        ConversationModel conversation = conversationRepository.findById(message.getConversationId())
-                .orElseThrow(() -> new IllegalStateException("Conversation not found"));
-
-        conversation.setLastMessageContent(message.getContent());
-        conversation.setLastMessageTimestamp(message.getTimestamp());
-        conversation.setLastMessageSenderId(message.getSenderId());
-
-        // Increment unread count for recipient
-        Map<String, Integer> unreadCounts = conversation.getUnreadCounts();
-        unreadCounts.put(
-                message.getRecipientId(),
-                unreadCounts.getOrDefault(message.getRecipientId(), 0) + 1
-        );
-        conversation.setUnreadCounts(unreadCounts);
+    public record HistoryPage(List<MessageModel> messages, String before) {
+    }
 
-        conversationRepository.save(conversation);
+    /**
+     * Newest-first keyset pagination on (timestamp, _id) over conversation_timestamp_id_idx
+     * Each page is one bounded index scan - no skip, and messages arriving meanwhile don't shift older pages.
+     * The projection drops conversationId (the caller has it) and _class.
+     * The newest page of a recently opened conversation comes from RecentMessageCache instead,
+     * and a newest page read from Mongo (re)seeds it.
+     *
+     * @param before Cursor from a previous page, or null for the newest page
+     */
+    public HistoryPage getHistoryPage(String conversationId, String before, int limit) {
+        // One extra message tells whether an older page exists
+        List<MessageModel> newestFirst = before == null ? recentMessageCache.newest(conversationId, limit + 1) : null;
 
-        return savedMessage;
+        if (newestFirst == null) {
+            long stamp = recentMessageCache.stamp(conversationId);
+
+            Criteria criteria = Criteria.where("conversationId").is(conversationId);
+            if (before != null) {
+                KeysetCursor cursor = KeysetCursor.decode(before);
+                criteria = criteria.orOperator(
+                        Criteria.where("timestamp").lt(cursor.timestamp()),
+                        Criteria.where("timestamp").is(cursor.timestamp()).and("id").lt(cursor.id())
+                );
+            }
+
+            Query query = Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.DESC, "timestamp", "id"))
+                    .limit(limit + 1);
+            query.fields().include("senderId", "recipientId", "content", "timestamp", "isRead", "readAt");
+
+            newestFirst = mongoTemplate.find(query, MessageModel.class);
+            for (MessageModel message : newestFirst) {
+                message.setConversationId(conversationId);
+            }
+            if (before == null) {
+                recentMessageCache.seed(conversationId, newestFirst, newestFirst.size() <= limit, stamp);
+            }
+        }
+
+        boolean hasOlder = newestFirst.size() > limit;
+        List<MessageModel> page = new ArrayList<>(hasOlder ? newestFirst.subList(0, limit) : newestFirst);
+
+        String nextBefore = null;
+        if (hasOlder) {
+            MessageModel oldest = page.get(page.size() - 1);
+            nextBefore = new KeysetCursor(oldest.getTimestamp(), oldest.getId()).encode();
+        }
+
+        Collections.reverse(page);
+        return new HistoryPage(page, nextBefore);
     }
 
     /**
-     * Mark messages as read and update conversation unread counts
+     * Outcome of a mark-as-read
+     * @param markedCount Messages that actually went from unread to read
+     * @param senderId    The other participant, whose messages were read (null when nothing was marked)
+     * @param unreadTotal The reader's total unread count afterwards (null when nothing was marked)
      */
-    @Transactional
-    public List<MessageModel> markMessagesAsRead(List<String> messageIds, String userId) {
-        List<MessageModel> messages = messageRepository.findAllById(messageIds);
-        LocalDateTime readAt = LocalDateTime.now();
-
-        String conversationId = null;
-        int markedCount = 0;
+    public record ReadResult(String conversationId, long markedCount, LocalDateTime readAt, String senderId,
+                             UnreadTotalService.UnreadTotal unreadTotal) {
+    }
 
-        for (MessageModel message : messages) {
-            if (!message.isRead() && message.getRecipientId().equals(userId)) {
-                message.setRead(true);
-                message.setReadAt(readAt);
-                conversationId = message.getConversationId();
-                markedCount++;
+    /**
+     * Mark the given messages as read
+     * Messages already read, addressed to someone else or outside the conversation are left untouched.
+     * When conversationId is null it is taken from the first message (clients mark one conversation at a time).
+     */
+    public ReadResult markMessagesAsRead(String conversationId, List<String> messageIds, String userId) {
+        if (conversationId == null) {
+            Query first = Query.query(Criteria.where("_id").is(messageIds.get(0)));
+            first.fields().include("conversationId");
+            MessageModel message = mongoTemplate.findOne(first, MessageModel.class);
+            if (message == null) {
+                return new ReadResult(null, 0, LocalDateTime.now(), null, null);
             }
+            conversationId = message.getConversationId();
         }
 
-        List<MessageModel> updatedMessages = messageRepository.saveAll(messages);
+        Set<String> ids = new HashSet<>(messageIds);
+        return markRead(conversationId, userId, Criteria.where("_id").in(messageIds), message -> ids.contains(message.getId()));
+    }
 
-        // Update conversation unread count
-        if (conversationId != null && markedCount > 0) {
-            ConversationModel conversation = conversationRepository.findById(conversationId)
-                    .orElseThrow(() -> new IllegalStateException("Conversation not found"));
+    /**
+     * Mark every unread message the user received in the conversation up to (and including) a timestamp
+     */
+    public ReadResult markConversationReadUpTo(String conversationId, String userId, LocalDateTime upTo) {
+        return markRead(conversationId, userId, Criteria.where("timestamp").lte(upTo), message -> !message.getTimestamp().isAfter(upTo));
+    }
 
-            Map<String, Integer> unreadCounts = conversation.getUnreadCounts();
-            int currentUnread = unreadCounts.getOrDefault(userId, 0);
-            unreadCounts.put(userId, Math.max(0, currentUnread - markedCount));
-            conversation.setUnreadCounts(unreadCounts);
+    /**
+     * One filtered updateMulti on the messages, then the modified count comes off the
+     * reader's unread counter with an atomic $inc (which also returns the participants)
+     * @param cached The same selection, applied to RecentMessageCache
+     */
+    private ReadResult markRead(String conversationId, String userId, Criteria selection, Predicate<MessageModel> cached) {
+        LocalDateTime readAt = LocalDateTime.now();
 
-            conversationRepository.save(conversation);
+        Query unread = Query.query(new Criteria().andOperator(
+                Criteria.where("conversationId").is(conversationId)
+                        .and("recipientId").is(userId)
+                        .and("isRead").is(false),
+                selection
+        ));
+        Update markRead = new Update()
+                .set("isRead", true)
+                .set("readAt", readAt);
+
+        long markedCount = mongoTemplate.updateMulti(unread, markRead, MessageModel.class).getModifiedCount();
+        if (markedCount == 0) {
+            return new ReadResult(conversationId, 0, readAt, null, null);
         }
+        recentMessageCache.markRead(conversationId, userId, cached, readAt);
+
+        Query conversationQuery = Query.query(Criteria.where("_id").is(conversationId));
+        conversationQuery.fields().include("user1Id", "user2Id");
+        ConversationModel conversation = mongoTemplate.findAndModify(
+                conversationQuery,
+                new Update().inc("unreadCounts." + userId, -markedCount),
+                ConversationModel.class
+        );
 
-        return updatedMessages;
+        inboxService.recordRead(userId, conversationId, markedCount);
+        UnreadTotalService.UnreadTotal unreadTotal = unreadTotalService.add(userId, -markedCount);
+
+        String senderId = null;
+        if (conversation != null) {
+            senderId = userId.equals(conversation.getUser1Id()) ? conversation.getUser2Id() : conversation.getUser1Id();
+        }
+        return new ReadResult(conversationId, markedCount, readAt, senderId, unreadTotal);
     }
 
     /**
-     * Get unread count for a user across all conversations
+     * Get unread count per conversation for a user (conversations with unread messages only)
+     * Read from the user's inbox entries, one indexed query on userId
      */
     public Map<String, Integer> getUnreadCountsByConversation(String userId) {
-        List<ConversationModel> conversations = conversationRepository.findByUserId(userId);
-        Map<String, Integer> unreadCounts = new HashMap<>();
+        Query query = Query.query(Criteria.where("userId").is(userId).and("unreadCount").gt(0));
+        query.fields().include("conversationId", "unreadCount");
 
-        for (ConversationModel conv : conversations) {
-            int count = conv.getUnreadCounts().getOrDefault(userId, 0);
-            if (count > 0) {
-                unreadCounts.put(conv.getId(), count);
-            }
+        Map<String, Integer> unreadCounts = new HashMap<>();
+        for (InboxEntryModel entry : mongoTemplate.find(query, InboxEntryModel.class)) {
+            unreadCounts.put(entry.getConversationId(), entry.getUnreadCount());
         }
-
         return unreadCounts;
     }
 }
@@ -4,11 +4,17 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.aiplatform.v1.*;
 import com.google.protobuf.Value;
 import com.roommate.manager.config.VectorSearchConfig;
+import com.roommate.manager.jfr.VertexRpcEvent;
+import com.roommate.manager.model.BudgetModel;
+import com.roommate.manager.model.LifestyleModel;
 import com.roommate.manager.model.UserModel;
+import com.roommate.manager.model.dto.PublicProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,52 +34,68 @@ public class EmbeddingService {
      * This describes WHO the user IS
      */
     public String userProfileToText(UserModel user) {
+        return profileToText(user.getAge(), user.getGender(), user.getZipCode(),
+            user.getBudget(), user.getLifestyle(), user.getMoreAboutMe());
+    }
+
+    /**
+     * Same description built from a public profile projection
+     * Lets the matching endpoints fill "description" for the returned page only, without the full UserModel
+     */
+    public String userProfileToText(PublicProfile profile) {
+        int age = profile.dateOfBirth() == null ? 0 : Period.between(profile.dateOfBirth(), LocalDate.now()).getYears();
+        return profileToText(age, profile.gender(), profile.zipCode(),
+            profile.budget(), profile.lifestyle(), profile.moreAboutMe());
+    }
+
+    private String profileToText(int age, String gender, String zipCode,
+                                 BudgetModel budget, LifestyleModel lifestyle, String moreAboutMe) {
         StringBuilder description = new StringBuilder();
         description.append("My profile: ");
 
-        description.append(String.format("Age: %d, Gender: %s. ", user.getAge(), user.getGender()));
+        description.append(String.format("Age: %d, Gender: %s. ", age, gender));
 
-        if (user.getZipCode() != null) {
-            description.append(String.format("Location: %s. ", user.getZipCode()));
+        if (zipCode != null) {
+            description.append(String.format("Location: %s. ", zipCode));
         }
 
         // Budget information
-        if (user.getBudget() != null) {
+        if (budget != null) {
             description.append(String.format("Budget: $%d-$%d. ",
-                user.getBudget().getMin(), user.getBudget().getMax()));
+                budget.getMin(), budget.getMax()));
         }
 
         // Lifestyle information
-        if (user.getLifestyle() != null) {
+        if (lifestyle != null) {
             description.append("My lifestyle: ");
 
-            if (user.getLifestyle().getPetFriendly()) {
+            if (lifestyle.getPetFriendly()) {
                 description.append("Pet-friendly, ");
             } else {
                 description.append("No pets, ");
             }
 
-            if (user.getLifestyle().getSmoking()) {
+            if (lifestyle.getSmoking()) {
                 description.append("Smoker, ");
             } else {
                 description.append("Non-smoker, ");
             }
 
-            if (user.getLifestyle().getNightOwl()) {
+            if (lifestyle.getNightOwl()) {
                 description.append("Night owl, ");
             } else {
                 description.append("Early bird, ");
             }
 
-            if (user.getLifestyle().getGuestFrequency() != null) {
-                description.append(String.format("%s. ", user.getLifestyle().getGuestFrequency()));
+            if (lifestyle.getGuestFrequency() != null) {
+                description.append(String.format("%s. ", lifestyle.getGuestFrequency()));
             }
         }
 
         // Additional free-form text about themselves
-        if (user.getMoreAboutMe() != null && !user.getMoreAboutMe().trim().isEmpty()) {
+        if (moreAboutMe != null && !moreAboutMe.trim().isEmpty()) {
             description.append("More about me: ");
-            description.append(user.getMoreAboutMe());
+            description.append(moreAboutMe);
             description.append(" ");
         }
 
@@ -207,7 +229,13 @@ public class EmbeddingService {
                 .setParameters(parametersBuilder.build())
                 .build();
 
-            PredictResponse response = client.predict(request);
+            VertexRpcEvent rpc = VertexRpcEvent.start(VertexRpcEvent.PREDICT, request.getInstancesCount());
+            PredictResponse response = null;
+            try {
+                response = client.predict(request);
+            } finally {
+                rpc.finish(request, response);
+            }
 
             // Extract embeddings from response
             if (response.getPredictionsCount() > 0) {
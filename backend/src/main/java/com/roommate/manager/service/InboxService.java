@@ -0,0 +1,218 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.ConversationModel;
+import com.roommate.manager.model.InboxEntryModel;
+import com.roommate.manager.model.MessageModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Per-user inbox (one InboxEntryModel per user and conversation) backing the conversation list
+ *
+ * Every write is a single-document upsert / $inc / $max, so entries stay consistent under concurrent
+ * sends and reads without read-modify-write. Both entries of a send go out in one ordered bulk write.
+ *
+ * lastMessageTimestamp only moves forward ($max): sends that finish out of order must not move an
+ * entry back, or the keyset order of the conversation list (user_last_message_idx) would shift
+ * between pages. The preview and sender follow with a second update that only applies while the
+ * entry still holds this message's timestamp.
+ */
+@Service
+public class InboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(InboxService.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${chat.inbox-backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    /**
+     * One page of a user's conversation list, most recent first
+     * @param before Cursor for the next page, null when there are no more conversations
+     */
+    public record InboxPage(List<InboxEntryModel> conversations, String before) {
+    }
+
+    /**
+     * Move the conversation to the top of both participants' inboxes; the recipient's unread count goes up by one
+     * Ordered, so each entry's preview update runs after its upsert
+     */
+    public void recordMessage(MessageModel message) {
+        String conversationId = message.getConversationId();
+        String preview = InboxEntryModel.preview(message.getContent());
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, InboxEntryModel.class);
+        bulk.upsert(
+                entryQuery(message.getSenderId(), conversationId),
+                lastMessageUpdate(message.getSenderId(), message.getRecipientId(), conversationId, message, preview)
+                        .setOnInsert("unreadCount", 0)
+        );
+        bulk.upsert(
+                entryQuery(message.getRecipientId(), conversationId),
+                lastMessageUpdate(message.getRecipientId(), message.getSenderId(), conversationId, message, preview)
+                        .inc("unreadCount", 1)
+        );
+        bulk.updateOne(newestQuery(message.getSenderId(), conversationId, message), previewUpdate(message, preview));
+        bulk.updateOne(newestQuery(message.getRecipientId(), conversationId, message), previewUpdate(message, preview));
+        bulk.execute();
+    }
+
+    /**
+     * Take messages that were just marked read off the reader's unread count
+     */
+    public void recordRead(String userId, String conversationId, long markedCount) {
+        if (markedCount <= 0) {
+            return;
+        }
+        mongoTemplate.updateFirst(
+                entryQuery(userId, conversationId),
+                new Update().inc("unreadCount", -markedCount),
+                InboxEntryModel.class
+        );
+    }
+
+    /**
+     * Newest-first keyset pagination on (lastMessageTimestamp, _id) over user_last_message_idx
+     *
+     * @param before Cursor from a previous page, or null for the first page
+     */
+    public InboxPage getPage(String userId, String before, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (before != null) {
+            KeysetCursor cursor = KeysetCursor.decode(before);
+            criteria = criteria.orOperator(
+                    Criteria.where("lastMessageTimestamp").lt(cursor.timestamp()),
+                    Criteria.where("lastMessageTimestamp").is(cursor.timestamp()).and("id").lt(cursor.id())
+            );
+        }
+
+        // One extra document tells whether another page exists
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "lastMessageTimestamp", "id"))
+                .limit(limit + 1);
+
+        List<InboxEntryModel> entries = mongoTemplate.find(query, InboxEntryModel.class);
+        if (entries.size() <= limit) {
+            return new InboxPage(entries, null);
+        }
+
+        List<InboxEntryModel> page = new ArrayList<>(entries.subList(0, limit));
+        InboxEntryModel last = page.get(page.size() - 1);
+        return new InboxPage(page, new KeysetCursor(last.getLastMessageTimestamp(), last.getId()).encode());
+    }
+
+    /**
+     * Create the inbox entries of conversations that predate the inbox
+     * Insert-only ($setOnInsert), so entries already maintained by live traffic are never overwritten.
+     * Skipped once every conversation has both entries.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void backfillInbox() {
+        if (!backfillEnabled) {
+            return;
+        }
+
+        try {
+            long conversations = mongoTemplate.estimatedCount(ConversationModel.class);
+            if (mongoTemplate.estimatedCount(InboxEntryModel.class) >= conversations * 2) {
+                return;
+            }
+
+            Query withMessages = Query.query(Criteria.where("lastMessageTimestamp").ne(null));
+            withMessages.fields().exclude("createdAt", "updatedAt");
+
+            long created = 0;
+            BulkOperations bulk = null;
+            int pending = 0;
+
+            try (Stream<ConversationModel> stream = mongoTemplate.stream(withMessages, ConversationModel.class)) {
+                for (ConversationModel conversation : (Iterable<ConversationModel>) stream::iterator) {
+                    if (bulk == null) {
+                        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InboxEntryModel.class);
+                    }
+                    bulk.upsert(entryQuery(conversation.getUser1Id(), conversation.getId()),
+                            backfillUpdate(conversation, conversation.getUser1Id(), conversation.getUser2Id()));
+                    bulk.upsert(entryQuery(conversation.getUser2Id(), conversation.getId()),
+                            backfillUpdate(conversation, conversation.getUser2Id(), conversation.getUser1Id()));
+                    pending += 2;
+
+                    if (pending >= BACKFILL_BATCH_SIZE) {
+                        created += bulk.execute().getUpserts().size();
+                        bulk = null;
+                        pending = 0;
+                    }
+                }
+            }
+            if (bulk != null) {
+                created += bulk.execute().getUpserts().size();
+            }
+
+            if (created > 0) {
+                log.info("📬 Backfilled {} inbox entries from {} conversations", created, conversations);
+            }
+        } catch (Exception e) {
+            // The inbox fills in from live traffic; old conversations only show up once they get a new message
+            log.warn("⚠️ Inbox backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private static Query entryQuery(String userId, String conversationId) {
+        return Query.query(Criteria.where("_id").is(InboxEntryModel.idFor(userId, conversationId)));
+    }
+
+    private static Update lastMessageUpdate(String userId, String otherUserId, String conversationId,
+                                            MessageModel message, String preview) {
+        return new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("conversationId", conversationId)
+                .setOnInsert("otherUserId", otherUserId)
+                .setOnInsert("lastMessageContent", preview)
+                .setOnInsert("lastMessageSenderId", message.getSenderId())
+                .max("lastMessageTimestamp", message.getTimestamp());
+    }
+
+    // Matches the entry only while this message is still its newest
+    private static Query newestQuery(String userId, String conversationId, MessageModel message) {
+        return Query.query(Criteria.where("_id").is(InboxEntryModel.idFor(userId, conversationId))
+                .and("lastMessageTimestamp").is(message.getTimestamp()));
+    }
+
+    private static Update previewUpdate(MessageModel message, String preview) {
+        return new Update()
+                .set("lastMessageContent", preview)
+                .set("lastMessageSenderId", message.getSenderId());
+    }
+
+    private static Update backfillUpdate(ConversationModel conversation, String userId, String otherUserId) {
+        Integer unread = conversation.getUnreadCounts() != null ? conversation.getUnreadCounts().get(userId) : null;
+        return new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("conversationId", conversation.getId())
+                .setOnInsert("otherUserId", otherUserId)
+                .setOnInsert("lastMessageContent", InboxEntryModel.preview(conversation.getLastMessageContent()))
+                .setOnInsert("lastMessageTimestamp", conversation.getLastMessageTimestamp())
+                .setOnInsert("lastMessageSenderId", conversation.getLastMessageSenderId())
+                .setOnInsert("unreadCount", unread != null ? Math.max(0, unread) : 0);
+    }
+}
@@ -3,6 +3,8 @@ package com.roommate.manager.service;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.aiplatform.v1.*;
 import com.roommate.manager.config.VectorSearchConfig;
+import com.roommate.manager.jfr.IndexUpsertEvent;
+import com.roommate.manager.jfr.VertexRpcEvent;
 import com.roommate.manager.model.UserModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -42,12 +44,22 @@ public class IndexManagementService {
             return;
         }
 
+        IndexUpsertEvent upsertEvent = IndexUpsertEvent.start(user.getId());
+        try {
+            upsertUserVectors(user, upsertEvent);
+            upsertEvent.succeeded();
+        } finally {
+            upsertEvent.finish();
+        }
+    }
+
+    private void upsertUserVectors(UserModel user, IndexUpsertEvent upsertEvent) throws IOException {
         // Generate BOTH embeddings for the user
         List<Float> profileEmbedding = embeddingService.generateProfileEmbedding(user);
         List<Float> preferenceEmbedding = embeddingService.generatePreferenceEmbedding(user);
 
-        // Extract city code for location filtering
-        String cityCode = getCityCode(user.getZipCode());
+        // City code for location filtering (precomputed on save)
+        String cityCode = user.getCityCode();
 
         // Create datapoint for PROFILE (who they are)
         // Add restricts to mark this as a profile vector and add city code for location filtering
@@ -96,6 +108,7 @@ public class IndexManagementService {
         }
 
         IndexDatapoint preferenceDatapoint = preferenceBuilder.build();
+        upsertEvent.datapoints(2, profileEmbedding.size(), cityCode != null && !cityCode.isEmpty());
 
         // Upload BOTH vectors to index
         // Configure client with explicit endpoint for the region and credentials
@@ -112,7 +125,13 @@ public class IndexManagementService {
                 .addDatapoints(preferenceDatapoint)
                 .build();
 
-            indexServiceClient.upsertDatapoints(request);
+            VertexRpcEvent rpc = VertexRpcEvent.start(VertexRpcEvent.UPSERT_DATAPOINTS, request.getDatapointsCount());
+            UpsertDatapointsResponse response = null;
+            try {
+                response = indexServiceClient.upsertDatapoints(request);
+            } finally {
+                rpc.finish(request, response);
+            }
             System.out.println("Successfully uploaded profile + preference vectors for user: " + user.getId());
 
         } catch (Exception e) {
@@ -174,7 +193,13 @@ public class IndexManagementService {
                 .addQueries(query)
                 .build();
 
-            FindNeighborsResponse response = matchServiceClient.findNeighbors(request);
+            VertexRpcEvent rpc = VertexRpcEvent.start(VertexRpcEvent.FIND_NEIGHBORS, request.getQueriesCount());
+            FindNeighborsResponse response = null;
+            try {
+                response = matchServiceClient.findNeighbors(request);
+            } finally {
+                rpc.finish(request, response);
+            }
 
             // Extract and return neighbor IDs
             return response.getNearestNeighbors(0)
@@ -213,22 +238,17 @@ public class IndexManagementService {
                 .addDatapointIds(userId + "_preference")
                 .build();
 
-            indexServiceClient.removeDatapoints(request);
+            VertexRpcEvent rpc = VertexRpcEvent.start(VertexRpcEvent.REMOVE_DATAPOINTS, request.getDatapointIdsCount());
+            RemoveDatapointsResponse response = null;
+            try {
+                response = indexServiceClient.removeDatapoints(request);
+            } finally {
+                rpc.finish(request, response);
+            }
             System.out.println("Successfully removed profile + preference vectors for user: " + userId);
 
         } catch (Exception e) {
             throw new IOException("Failed to remove user vectors from index: " + e.getMessage(), e);
         }
     }
-
-    /**
-     * Extract city code from zipcode (first 3 digits)
-     * In US zipcodes, the first 3 digits represent the sectional center facility (roughly a city/metro area)
-     */
-    private String getCityCode(String zipCode) {
-        if (zipCode == null || zipCode.length() < 3) {
-            return null;
-        }
-        return zipCode.substring(0, 3);
-    }
 }
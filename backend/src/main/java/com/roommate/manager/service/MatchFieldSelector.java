@@ -0,0 +1,147 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.UserModel;
+import com.roommate.manager.model.dto.MatchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Implements the ?fields= selector of the matching endpoints
+ *
+ * Field groups:
+ * - user        → the candidate's public profile
+ * - scores      → mutualScore / forwardScore / reverseScore / similarityScore
+ * - breakdown   → attributeScore / embeddingScore
+ * - description → text summary of the candidate, computed here and only for the results being returned
+ *
+ * userId is always included. Without ?fields= each endpoint keeps its original payload.
+ */
+@Service
+public class MatchFieldSelector {
+
+    public static final String USER = "user";
+    public static final String SCORES = "scores";
+    public static final String BREAKDOWN = "breakdown";
+    public static final String DESCRIPTION = "description";
+
+    private static final Set<String> KNOWN_FIELDS = Set.of(USER, SCORES, BREAKDOWN, DESCRIPTION);
+
+    private static final List<String> SCORE_KEYS = List.of("mutualScore", "forwardScore", "reverseScore", "similarityScore");
+    private static final List<String> BREAKDOWN_KEYS = List.of("attributeScore", "embeddingScore");
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    /**
+     * Parse the raw ?fields= value
+     *
+     * @return The requested field groups, or null when the parameter is absent (endpoint default)
+     * @throws IllegalArgumentException for unknown field names
+     */
+    public Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!KNOWN_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'. Allowed: " + String.join(",", KNOWN_FIELDS));
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    /**
+     * Fill in descriptions for already-selected (top-K) results
+     */
+    public List<MatchResult> withDescriptions(List<MatchResult> matches) {
+        return matches.stream()
+            .map(match -> match.description() != null
+                ? match
+                : match.withDescription(embeddingService.userProfileToText(match.user())))
+            .toList();
+    }
+
+    /**
+     * Apply the selector to typed match results
+     * Returns the records untouched when no selector was given
+     */
+    public List<?> select(List<MatchResult> matches, Set<String> fields) {
+        if (fields == null) {
+            return matches;
+        }
+
+        List<Map<String, Object>> selected = new ArrayList<>(matches.size());
+        for (MatchResult match : matches) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("userId", match.userId());
+            if (fields.contains(USER)) {
+                result.put("user", match.user());
+            }
+            if (fields.contains(SCORES)) {
+                result.put("mutualScore", match.mutualScore());
+                result.put("forwardScore", match.forwardScore());
+                result.put("reverseScore", match.reverseScore());
+            }
+            if (fields.contains(BREAKDOWN)) {
+                result.put("attributeScore", match.attributeScore());
+                result.put("embeddingScore", match.embeddingScore());
+            }
+            if (fields.contains(DESCRIPTION)) {
+                result.put("description", match.description() != null
+                    ? match.description()
+                    : embeddingService.userProfileToText(match.user()));
+            }
+            selected.add(result);
+        }
+        return selected;
+    }
+
+    /**
+     * Apply the selector to the map-based results of the similarity/search endpoints
+     *
+     * @param descriptionByDefault Whether the endpoint's original payload carried a description
+     */
+    public List<Map<String, Object>> selectMaps(List<Map<String, Object>> results, Set<String> fields,
+                                                boolean descriptionByDefault) {
+        boolean wantsDescription = fields == null ? descriptionByDefault : fields.contains(DESCRIPTION);
+
+        List<Map<String, Object>> selected = new ArrayList<>(results.size());
+        for (Map<String, Object> result : results) {
+            Map<String, Object> projected;
+            if (fields == null) {
+                projected = new HashMap<>(result);
+            } else {
+                projected = new LinkedHashMap<>();
+                projected.put("userId", result.get("userId"));
+                if (fields.contains(USER)) {
+                    projected.put("user", result.get("user"));
+                }
+                copyPresent(result, projected, fields.contains(SCORES) ? SCORE_KEYS : List.of());
+                copyPresent(result, projected, fields.contains(BREAKDOWN) ? BREAKDOWN_KEYS : List.of());
+            }
+
+            if (wantsDescription && result.get("user") instanceof UserModel user) {
+                projected.put("description", embeddingService.userProfileToText(user));
+            }
+            selected.add(projected);
+        }
+        return selected;
+    }
+
+    private static void copyPresent(Map<String, Object> from, Map<String, Object> to, List<String> keys) {
+        for (String key : keys) {
+            if (from.containsKey(key)) {
+                to.put(key, from.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.MatchEntryModel;
+import com.roommate.manager.model.UserMatchesModel;
+import com.roommate.manager.model.UserModel;
+import com.roommate.manager.model.dto.MatchResult;
+import com.roommate.manager.repository.UserMatchesRepository;
+import com.roommate.manager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Maintains the materialized user_matches store
+ *
+ * The ultra-fast engine is no longer run per request: it runs here as a refresh job,
+ * and the matches page reads the stored ranked list with a single _id lookup.
+ */
+@Service
+public class MatchMaterializationService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchMaterializationService.class);
+
+    @Autowired
+    private UserMatchesRepository userMatchesRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UltraOptimizedVectorSearchService ultraOptimizedVectorSearchService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MatchResultCache matchResultCache;
+
+    @Autowired
+    private UserHydrationService userHydrationService;
+
+    @Autowired
+    @Qualifier("matchRefreshExecutor")
+    private ThreadPoolTaskExecutor refreshExecutor;
+
+    // The engine never looks at more than 150 candidates, so storing more is pointless
+    @Value("${matching.materialized.top-n:150}")
+    private int topN;
+
+    @Value("${matching.materialized.max-age-minutes:60}")
+    private long maxAgeMinutes;
+
+    @Value("${matching.materialized.sweep-batch-size:50}")
+    private int sweepBatchSize;
+
+    @Value("${matching.materialized.first-visit-wait-ms:30000}")
+    private long firstVisitWaitMs;
+
+    // Users with a refresh queued or running (dedupes bursts of refresh requests; first visits wait on it)
+    private final Map<String, CompletableFuture<UserMatchesModel>> pendingRefreshes = new ConcurrentHashMap<>();
+
+    // Users with a profile-update rescore queued (coalesces rapid successive edits)
+    private final Set<String> pendingProfileUpdates = ConcurrentHashMap.newKeySet();
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    /**
+     * Get the stored match list for a user
+     * A stale list is still served, with a background refresh queued.
+     *
+     * On first access there is nothing stored to serve (an empty list would read as "no matches"
+     * and be cached as such), so the refresh is queued on the refresh pool and this one request waits
+     * for its result. The engine never runs on the request thread, concurrent first visits share one
+     * computation, and the pool bounds how many run at once. If the wait times out the refresh
+     * still completes in the background and the next request is served from the store.
+     */
+    public UserMatchesModel getOrComputeMatches(String userId) throws IOException {
+        Optional<UserMatchesModel> stored = userMatchesRepository.findById(userId);
+        if (stored.isEmpty()) {
+            return awaitRefresh(userId);
+        }
+
+        UserMatchesModel matches = stored.get();
+        if (isStale(matches)) {
+            requestRefresh(userId);
+        }
+        return matches;
+    }
+
+    /**
+     * Recompute a user's match list with the ultra-fast engine and store it
+     */
+    public UserMatchesModel refreshNow(String userId) throws IOException {
+        List<Map<String, Object>> scored = ultraOptimizedVectorSearchService.scoreMutualMatchesUltraFast(userId, topN);
+
+        List<MatchEntryModel> entries = new ArrayList<>(scored.size());
+        for (Map<String, Object> result : scored) {
+            entries.add(new MatchEntryModel(
+                (String) result.get("userId"),
+                (double) result.get("forwardScore"),
+                (double) result.get("reverseScore"),
+                (double) result.get("mutualScore"),
+                (double) result.get("attributeScore"),
+                (double) result.get("embeddingScore")
+            ));
+        }
+
+        Query query = new Query(Criteria.where("_id").is(userId));
+        Update update = new Update()
+            .set("matches", entries)
+            .set("computedAt", LocalDateTime.now())
+            .inc("version", 1);
+
+        UserMatchesModel saved = mongoTemplate.findAndModify(
+            query, update, FindAndModifyOptions.options().upsert(true).returnNew(true), UserMatchesModel.class);
+        matchResultCache.invalidateOwner(userId);
+
+        log.debug("Materialized {} matches for user {} (version {})",
+            entries.size(), userId, saved != null ? saved.getVersion() : "?");
+        return saved;
+    }
+
+    /**
+     * Queue a background refresh for a user
+     * @return The pending refresh (an already queued one if there is one)
+     */
+    public CompletableFuture<UserMatchesModel> requestRefresh(String userId) {
+        CompletableFuture<UserMatchesModel> refresh = new CompletableFuture<>();
+        CompletableFuture<UserMatchesModel> pending = pendingRefreshes.putIfAbsent(userId, refresh);
+        if (pending != null) {
+            return pending;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                refresh.complete(refreshNow(userId));
+            } catch (IllegalArgumentException e) {
+                dropIfUserDeleted(userId, e);
+                refresh.completeExceptionally(e);
+            } catch (Exception e) {
+                log.warn("Background match refresh failed for {}: {}", userId, e.getMessage());
+                refresh.completeExceptionally(e);
+            } finally {
+                pendingRefreshes.remove(userId, refresh);
+            }
+        });
+        return refresh;
+    }
+
+    /**
+     * Drop the stored list of a user who no longer exists
+     * The engine also throws IllegalArgumentException for other reasons, so the user is checked first
+     */
+    private void dropIfUserDeleted(String userId, IllegalArgumentException e) {
+        if (userRepository.existsById(userId)) {
+            log.warn("Match refresh rejected for {}: {}", userId, e.getMessage());
+            return;
+        }
+        userMatchesRepository.deleteById(userId);
+        log.debug("Dropped stored matches of deleted user {}", userId);
+    }
+
+    /**
+     * Queue (or join) a refresh and wait for its result, rethrowing the refresh's own failure
+     */
+    private UserMatchesModel awaitRefresh(String userId) throws IOException {
+        try {
+            return requestRefresh(userId).get(firstVisitWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Match computation failed for " + userId, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("Match computation for " + userId + " is still running - retry shortly", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for matches of " + userId, e);
+        }
+    }
+
+    /**
+     * React to a profile.updated event by re-scoring only the pairs that involve the changed user
+     *
+     * 1. Fresh candidate query for the changed user (their own list is rebuilt)
+     * 2. Every pair from that fresh list is mirrored into the candidate's stored list
+     * 3. Users whose stored top-N still contains the changed user but who did not come back
+     *    in the fresh query get that single pair re-scored
+     *
+     * Cost is O(affected pairs) instead of recomputing every user's list.
+     */
+    public void onProfileUpdated(String userId) {
+        if (!pendingProfileUpdates.add(userId)) {
+            return;
+        }
+
+        refreshExecutor.execute(() -> {
+            // Clear before running so an edit arriving mid-run is picked up by another pass
+            pendingProfileUpdates.remove(userId);
+            try {
+                rescoreAffectedPairs(userId);
+            } catch (IllegalArgumentException e) {
+                dropIfUserDeleted(userId, e);
+            } catch (Exception e) {
+                log.warn("Incremental rescore failed for {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    private void rescoreAffectedPairs(String userId) throws IOException {
+        // Reverse-dependency lookup (served by matches_candidate_idx)
+        Query dependentsQuery = new Query(Criteria.where("matches.candidateUserId").is(userId));
+        dependentsQuery.fields().include("_id");
+        List<String> dependentIds = mongoTemplate.find(dependentsQuery, UserMatchesModel.class).stream()
+            .map(UserMatchesModel::getId)
+            .filter(id -> !id.equals(userId))
+            .toList();
+
+        UserMatchesModel fresh = refreshNow(userId);
+        Set<String> freshCandidateIds = new HashSet<>();
+
+        int mirrored = 0;
+        for (MatchEntryModel entry : fresh.getMatches()) {
+            freshCandidateIds.add(entry.getCandidateUserId());
+            MatchEntryModel reversed = new MatchEntryModel(
+                userId,
+                entry.getReverseScore(),
+                entry.getForwardScore(),
+                entry.getMutualScore(),
+                entry.getAttributeScore(),
+                entry.getEmbeddingScore()
+            );
+            if (upsertEntry(entry.getCandidateUserId(), reversed)) {
+                mirrored++;
+            }
+        }
+
+        int rescored = 0;
+        for (String dependentId : dependentIds) {
+            if (freshCandidateIds.contains(dependentId)) {
+                continue; // Already handled by the mirrored entry
+            }
+
+            Map<String, Object> scores = ultraOptimizedVectorSearchService.calculatePairwiseScores(dependentId, userId);
+            if (scores.containsKey("error")) {
+                continue; // Embeddings unavailable - keep the previous entry rather than dropping it
+            }
+
+            if (!Boolean.TRUE.equals(scores.get("meetsRequirements"))) {
+                removeEntry(dependentId, userId);
+            } else {
+                upsertEntry(dependentId, toOwnerEntry(dependentId, userId, scores));
+            }
+            rescored++;
+        }
+
+        log.info("Incremental rescore for {}: {} fresh pairs, {} mirrored into other lists, {} dependent pairs re-scored",
+            userId, fresh.getMatches().size(), mirrored, rescored);
+    }
+
+    /**
+     * Convert a symmetric pairwise result into an entry seen from the owner's side
+     * (calculatePairwiseScores reports forward/reverse in normalized id order)
+     */
+    private MatchEntryModel toOwnerEntry(String ownerId, String candidateId, Map<String, Object> scores) {
+        boolean ownerIsFirst = ownerId.equals(scores.get("normalizedUserId1"));
+        double forward = (double) scores.get("forwardScore");
+        double reverse = (double) scores.get("reverseScore");
+
+        return new MatchEntryModel(
+            candidateId,
+            ownerIsFirst ? forward : reverse,
+            ownerIsFirst ? reverse : forward,
+            (double) scores.get("mutualScore"),
+            (double) scores.get("attributeScore"),
+            (double) scores.get("embeddingScore")
+        );
+    }
+
+    /**
+     * Insert or replace one candidate in an owner's stored list
+     * Returns false if the owner has no stored list or the entry does not make their top-N
+     */
+    private boolean upsertEntry(String ownerId, MatchEntryModel entry) {
+        return updateStoredList(ownerId, entries -> {
+            boolean hadPrior = entries.removeIf(e -> e.getCandidateUserId().equals(entry.getCandidateUserId()));
+            if (!hadPrior && entries.size() >= topN &&
+                entries.get(entries.size() - 1).getMutualScore() >= entry.getMutualScore()) {
+                return false;
+            }
+            entries.add(entry);
+            return true;
+        });
+    }
+
+    private boolean removeEntry(String ownerId, String candidateId) {
+        return updateStoredList(ownerId, entries -> entries.removeIf(e -> e.getCandidateUserId().equals(candidateId)));
+    }
+
+    /**
+     * Read-modify-write of one stored list, guarded by the version stamp
+     * Falls back to a full background refresh if the list keeps changing underneath us
+     */
+    private boolean updateStoredList(String ownerId, Function<List<MatchEntryModel>, Boolean> mutation) {
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            Optional<UserMatchesModel> stored = userMatchesRepository.findById(ownerId);
+            if (stored.isEmpty()) {
+                return false; // Never visited - computed from scratch on first access
+            }
+
+            UserMatchesModel current = stored.get();
+            List<MatchEntryModel> entries = new ArrayList<>(current.getMatches());
+            if (!mutation.apply(entries)) {
+                return false;
+            }
+
+            entries.sort(Comparator.comparingDouble(MatchEntryModel::getMutualScore).reversed());
+            if (entries.size() > topN) {
+                entries = new ArrayList<>(entries.subList(0, topN));
+            }
+
+            Query query = new Query(Criteria.where("_id").is(ownerId).and("version").is(current.getVersion()));
+            Update update = new Update().set("matches", entries).inc("version", 1);
+            if (mongoTemplate.updateFirst(query, update, UserMatchesModel.class).getModifiedCount() > 0) {
+                matchResultCache.invalidateOwner(ownerId);
+                return true;
+            }
+        }
+
+        requestRefresh(ownerId);
+        return false;
+    }
+
+    /**
+     * Periodically queue refreshes for the oldest stored lists
+     */
+    @Scheduled(fixedDelayString = "${matching.materialized.sweep-interval-ms:300000}",
+               initialDelayString = "${matching.materialized.sweep-initial-delay-ms:60000}")
+    public void refreshStaleMatches() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(maxAgeMinutes);
+
+        Query query = new Query(Criteria.where("computedAt").lt(cutoff))
+            .with(Sort.by("computedAt"))
+            .limit(sweepBatchSize);
+        query.fields().include("_id");
+
+        List<UserMatchesModel> stale = mongoTemplate.find(query, UserMatchesModel.class);
+        for (UserMatchesModel matches : stale) {
+            requestRefresh(matches.getId());
+        }
+
+        if (!stale.isEmpty()) {
+            log.info("Queued background refresh for {} stale match lists", stale.size());
+        }
+    }
+
+    /**
+     * Turn the top stored entries into match results
+     * Candidate documents are loaded with a single $in query
+     */
+    public List<MatchResult> hydrateMatches(UserMatchesModel stored, int topK) {
+        return hydrateEntries(stored.getMatches().stream().limit(topK).toList());
+    }
+
+    /**
+     * Join a slice of stored entries with their user documents (one $in query), keeping the given order
+     */
+    public List<MatchResult> hydrateEntries(List<MatchEntryModel> entries) {
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> candidateIds = entries.stream().map(MatchEntryModel::getCandidateUserId).toList();
+        Map<String, UserModel> usersById = userHydrationService.findAllById(candidateIds);
+
+        List<MatchResult> results = new ArrayList<>(entries.size());
+        for (MatchEntryModel entry : entries) {
+            UserModel user = usersById.get(entry.getCandidateUserId());
+            if (user == null) {
+                continue; // Candidate deleted since the list was computed
+            }
+            results.add(MatchResult.of(entry, user));
+        }
+
+        return results;
+    }
+
+    private boolean isStale(UserMatchesModel matches) {
+        return matches.getComputedAt() == null ||
+               matches.getComputedAt().isBefore(LocalDateTime.now().minusMinutes(maxAgeMinutes));
+    }
+}
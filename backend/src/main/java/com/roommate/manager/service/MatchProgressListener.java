@@ -0,0 +1,31 @@
+package com.roommate.manager.service;
+
+import java.util.Map;
+
+/**
+ * Callback for progressive match delivery
+ * The matching engines report each candidate as soon as it is scored (unranked)
+ * and each stage as it finishes, so streaming endpoints don't wait for the full list
+ */
+public interface MatchProgressListener {
+
+    // Used by the non-streaming callers
+    MatchProgressListener NONE = new MatchProgressListener() {
+    };
+
+    /**
+     * A candidate passed all filters and was scored - same map shape as the final result list
+     */
+    default void onMatch(Map<String, Object> match) {
+    }
+
+    /**
+     * A matching stage finished
+     *
+     * @param stage Stage name
+     * @param durationMs Wall-clock time spent in the stage
+     * @param count Number of items the stage produced (candidates, embeddings, matches)
+     */
+    default void onStage(String stage, long durationMs, int count) {
+    }
+}
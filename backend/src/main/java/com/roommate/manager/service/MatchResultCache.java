@@ -0,0 +1,300 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.dto.MatchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of the ultra-fast match lookup
+ *
+ * - Keyed by userId + topK bucket, bounded in size and TTL-aware
+ * - Single-flight: concurrent misses for the same key share one computation
+ * - Reverse index from every user in a cached result (owner and candidates) to its keys,
+ *   so a profile.updated event only drops the entries that actually mention that user
+ */
+@Service
+public class MatchResultCache {
+
+    // topK values are rounded up to one of these so ?topK=3 and ?topK=5 share an entry
+    private static final int[] TOPK_BUCKETS = {3, 10, 50, Integer.MAX_VALUE};
+
+    private static final long MARKER_PRUNE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Value("${matching.cache.ttl-seconds:120}")
+    private long ttlSeconds;
+
+    @Value("${matching.cache.max-entries:2000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // userId -> cache keys whose result mentions that user
+    private final ConcurrentHashMap<String, Set<String>> keysByUser = new ConcurrentHashMap<>();
+
+    // userId -> System.nanoTime() of the last invalidation (discards loads that raced with it)
+    private final ConcurrentHashMap<String, Long> lastInvalidation = new ConcurrentHashMap<>();
+
+    // System.nanoTime() of the last marker prune (at most one per MARKER_PRUNE_INTERVAL_NANOS)
+    private final AtomicLong lastMarkerPrune = new AtomicLong(System.nanoTime());
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Loads a fresh result for the given bucket size
+     */
+    @FunctionalInterface
+    public interface MatchLoader {
+        CachedMatches load(int bucketSize) throws IOException;
+    }
+
+    /**
+     * Cached view of one user's ranked matches
+     */
+    public record CachedMatches(long version, LocalDateTime computedAt, List<MatchResult> matches) {
+    }
+
+    /**
+     * Return the cached result for userId/topK, loading it at most once per key on a miss
+     * The returned list may be longer than topK - callers trim it
+     */
+    public CachedMatches get(String userId, int topK, MatchLoader loader) throws IOException {
+        int bucket = bucketFor(topK);
+        String key = keyFor(userId, bucket);
+        long now = System.nanoTime();
+
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && !isExpired(existing, now)) {
+                return existing;
+            }
+            if (existing != null) {
+                unregister(k, existing);
+            }
+            created[0] = new Entry(now);
+            return created[0];
+        });
+
+        if (entry == created[0]) {
+            misses.incrementAndGet();
+            load(key, userId, bucket, entry, loader);
+            evictIfNeeded();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException("Match lookup failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Drop every entry that mentions this user, either as the owner or as a candidate
+     */
+    public void invalidateUser(String userId) {
+        lastInvalidation.put(userId, System.nanoTime());
+        pruneMarkers();
+
+        Set<String> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            for (String key : keys) {
+                Entry removed = entries.remove(key);
+                if (removed != null) {
+                    unregister(key, removed);
+                }
+            }
+        }
+        for (int bucket : TOPK_BUCKETS) {
+            Entry removed = entries.remove(keyFor(userId, bucket));
+            if (removed != null) {
+                unregister(keyFor(userId, bucket), removed);
+            }
+        }
+    }
+
+    /**
+     * Drop the completed entries owned by this user (their stored list was rewritten)
+     * In-flight loads are left alone so concurrent readers still share them, but the marker
+     * keeps them from being cached (they may have read the list before it was rewritten)
+     */
+    public void invalidateOwner(String userId) {
+        lastInvalidation.put(userId, System.nanoTime());
+        pruneMarkers();
+
+        for (int bucket : TOPK_BUCKETS) {
+            String key = keyFor(userId, bucket);
+            Entry[] removed = new Entry[1];
+            entries.computeIfPresent(key, (k, existing) -> {
+                if (!existing.future.isDone()) {
+                    return existing;
+                }
+                removed[0] = existing;
+                return null;
+            });
+            if (removed[0] != null) {
+                unregister(key, removed[0]);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void load(String key, String userId, int bucket, Entry entry, MatchLoader loader) {
+        try {
+            CachedMatches value = loader.load(bucket);
+
+            Set<String> userIds = new HashSet<>();
+            userIds.add(userId);
+            for (MatchResult match : value.matches()) {
+                userIds.add(match.userId());
+            }
+            entry.userIds = userIds;
+            entry.loadedAtNanos = System.nanoTime();
+
+            if (invalidatedSince(userIds, entry.startedAtNanos)) {
+                // A profile changed while we were loading - hand the result to the waiters but don't keep it
+                entries.remove(key, entry);
+            } else {
+                for (String id : userIds) {
+                    keysByUser.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+            }
+
+            entry.future.complete(value);
+        } catch (Exception e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    private boolean invalidatedSince(Set<String> userIds, long startedAtNanos) {
+        for (String id : userIds) {
+            Long invalidatedAt = lastInvalidation.get(id);
+            if (invalidatedAt != null && invalidatedAt - startedAtNanos > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unregister(String key, Entry entry) {
+        for (String id : entry.userIds) {
+            keysByUser.computeIfPresent(id, (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * Expired entries go first, then the oldest ones until we are back under the bound
+     */
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            if (isExpired(entry, now) && entries.remove(key, entry)) {
+                unregister(key, entry);
+            }
+        });
+
+        while (entries.size() > maxEntries) {
+            Map.Entry<String, Entry> oldest = null;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (!candidate.getValue().future.isDone()) continue;
+                if (oldest == null || candidate.getValue().loadedAtNanos - oldest.getValue().loadedAtNanos < 0) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null || !entries.remove(oldest.getKey(), oldest.getValue())) {
+                break;
+            }
+            unregister(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * Drop invalidation markers no load can still be affected by: older than the TTL and than
+     * the start of every in-flight load. Runs on invalidations whatever the cache size, at most
+     * once a second, so the map stays bounded by the recent invalidation rate.
+     */
+    private void pruneMarkers() {
+        long now = System.nanoTime();
+        long last = lastMarkerPrune.get();
+        if (now - last < MARKER_PRUNE_INTERVAL_NANOS || !lastMarkerPrune.compareAndSet(last, now)) {
+            return;
+        }
+
+        long cutoff = now - TimeUnit.SECONDS.toNanos(ttlSeconds);
+        for (Entry entry : entries.values()) {
+            if (!entry.future.isDone() && entry.startedAtNanos - cutoff < 0) {
+                cutoff = entry.startedAtNanos;
+            }
+        }
+        long markerCutoff = cutoff;
+        lastInvalidation.entrySet().removeIf(e -> e.getValue() - markerCutoff < 0);
+    }
+
+    int markerCount() {
+        return lastInvalidation.size();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        if (!entry.future.isDone()) {
+            return false; // In-flight loads are always shared
+        }
+        return entry.future.isCompletedExceptionally() ||
+               now - entry.loadedAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private static int bucketFor(int topK) {
+        for (int bucket : TOPK_BUCKETS) {
+            if (topK <= bucket) {
+                return bucket;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static String keyFor(String userId, int bucket) {
+        return userId + "#" + bucket;
+    }
+
+    private static final class Entry {
+        final CompletableFuture<CachedMatches> future = new CompletableFuture<>();
+        final long startedAtNanos;
+        volatile long loadedAtNanos;
+        volatile Set<String> userIds = Set.of();
+
+        Entry(long startedAtNanos) {
+            this.startedAtNanos = startedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.MatchEntryModel;
+import com.roommate.manager.model.UserMatchesModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived snapshots of a user's full ranked match list, used for cursor pagination
+ *
+ * Page 1 pins the current list under a snapshot ID; every later page is sliced from the same
+ * snapshot, so pages stay consistent while the stored list is refreshed underneath and
+ * no page ever triggers another matching run.
+ */
+@Service
+public class MatchSnapshotStore {
+
+    @Value("${matching.snapshot.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${matching.snapshot.max-snapshots:5000}")
+    private int maxSnapshots;
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable ranked list pinned for paging
+     */
+    public record Snapshot(String id, String userId, long version, LocalDateTime computedAt,
+                           List<MatchEntryModel> entries, long createdAtNanos) {
+    }
+
+    /**
+     * Position inside a snapshot, as carried by the opaque cursor string
+     */
+    public record Cursor(String snapshotId, int offset) {
+    }
+
+    /**
+     * Pin the given stored list for paging
+     */
+    public Snapshot create(String userId, UserMatchesModel stored) {
+        evictIfNeeded();
+
+        Snapshot snapshot = new Snapshot(
+            UUID.randomUUID().toString(),
+            userId,
+            stored.getVersion(),
+            stored.getComputedAt(),
+            List.copyOf(stored.getMatches()),
+            System.nanoTime()
+        );
+        snapshots.put(snapshot.id(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Look up a snapshot, or null if it never existed or has expired
+     */
+    public Snapshot get(String snapshotId) {
+        Snapshot snapshot = snapshots.get(snapshotId);
+        if (snapshot == null) {
+            return null;
+        }
+        if (isExpired(snapshot, System.nanoTime())) {
+            snapshots.remove(snapshotId, snapshot);
+            return null;
+        }
+        return snapshot;
+    }
+
+    public String encodeCursor(String snapshotId, int offset) {
+        String raw = snapshotId + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by encodeCursor
+     * Throws IllegalArgumentException for anything malformed
+     */
+    public Cursor decodeCursor(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        int separator = raw.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        try {
+            int offset = Integer.parseInt(raw.substring(separator + 1));
+            if (offset < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new Cursor(raw.substring(0, separator), offset);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * Expired snapshots go first, then the oldest ones until there is room for one more
+     */
+    private void evictIfNeeded() {
+        if (snapshots.size() < maxSnapshots) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        snapshots.values().removeIf(snapshot -> isExpired(snapshot, now));
+
+        while (snapshots.size() >= maxSnapshots) {
+            Map.Entry<String, Snapshot> oldest = null;
+            for (Map.Entry<String, Snapshot> candidate : snapshots.entrySet()) {
+                if (oldest == null || candidate.getValue().createdAtNanos() - oldest.getValue().createdAtNanos() < 0) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null || !snapshots.remove(oldest.getKey(), oldest.getValue())) {
+                break;
+            }
+        }
+    }
+
+    private boolean isExpired(Snapshot snapshot, long now) {
+        return now - snapshot.createdAtNanos() > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+}
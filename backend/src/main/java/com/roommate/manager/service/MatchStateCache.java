@@ -0,0 +1,94 @@
+package com.roommate.manager.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-memory cache of "these two users are matched" (mutual likes), checked on every chat send
+ *
+ * - Keyed by the normalized pair, bounded LRU with a TTL
+ * - Only positive results are cached, so a fresh match is usable immediately;
+ *   the cost is one Mongo check per send between users who are not matched
+ * - LikeController invalidates the pair on like / unlike / unmatch; the TTL bounds how long
+ *   an unmatch made on another instance can still be messaged through
+ */
+@Service
+public class MatchStateCache {
+
+    private final long ttlNanos;
+    private final LruMap entries;
+
+    // Bumped by every invalidation; a load that raced with one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public MatchStateCache(@Value("${chat.match-state-cache.ttl-seconds:300}") long ttlSeconds,
+                           @Value("${chat.match-state-cache.max-entries:20000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LruMap(maxEntries);
+    }
+
+    /**
+     * Cached match state for the pair, loading it on a miss
+     */
+    public boolean isMatched(String userId1, String userId2, BooleanSupplier loader) {
+        String key = pairKey(userId1, userId2);
+        long now = System.nanoTime();
+
+        synchronized (entries) {
+            Long expiresAt = entries.get(key);
+            if (expiresAt != null) {
+                if (expiresAt - now > 0) {
+                    return true;
+                }
+                entries.remove(key);
+            }
+        }
+
+        long invalidationsBefore = invalidations.get();
+        boolean matched = loader.getAsBoolean();
+
+        if (matched) {
+            synchronized (entries) {
+                if (invalidations.get() == invalidationsBefore) {
+                    entries.put(key, System.nanoTime() + ttlNanos);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Forget the pair after a like in either direction changed
+     */
+    public void invalidate(String userId1, String userId2) {
+        String key = pairKey(userId1, userId2);
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    private static String pairKey(String userId1, String userId2) {
+        return userId1.compareTo(userId2) <= 0 ? userId1 + "_" + userId2 : userId2 + "_" + userId1;
+    }
+
+    private static final class LruMap extends LinkedHashMap<String, Long> {
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(Math.min(capacity, 1024), 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > capacity;
+        }
+    }
+}
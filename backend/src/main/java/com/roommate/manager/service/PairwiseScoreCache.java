@@ -0,0 +1,196 @@
+package com.roommate.manager.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of pairwise validation results keyed by the normalized pair plus both profile versions
+ *
+ * A profile version is the user's lastUpdatedAt, which the server stamps on every save
+ * (UserLocationConfig), so any save of either user naturally misses the cache - no explicit
+ * invalidation needed.
+ *
+ * Striped for concurrency: each stripe is a small access-ordered LRU guarded by its own lock,
+ * keyed by a 64-bit pair hash, with scores held as primitives instead of boxed map values.
+ */
+@Service
+public class PairwiseScoreCache {
+
+    private static final int STRIPES = 32; // Must be a power of two
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PairwiseScoreCache(@Value("${matching.pairwise-cache.max-entries:50000}") int maxEntries) {
+        int perStripe = Math.max(16, maxEntries / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Convert a profile timestamp into the version used in the cache key
+     */
+    public static long versionOf(LocalDateTime lastUpdatedAt) {
+        return lastUpdatedAt == null ? 0L : lastUpdatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Look up a cached result for the normalized pair (userId1 < userId2)
+     * Returns a fresh mutable map, or null on a miss
+     */
+    public Map<String, Object> get(String userId1, long version1, String userId2, long version2) {
+        long key = pairKey(userId1, userId2);
+        Stripe stripe = stripeFor(key);
+
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.get(key);
+        }
+
+        if (entry == null || !entry.matches(userId1, version1, userId2, version2)) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.toResult();
+    }
+
+    /**
+     * Store a result computed from the given profile versions
+     */
+    public void put(String userId1, long version1, String userId2, long version2, Map<String, Object> result) {
+        long key = pairKey(userId1, userId2);
+        Entry entry = new Entry(userId1, version1, userId2, version2, result);
+        Stripe stripe = stripeFor(key);
+
+        synchronized (stripe) {
+            stripe.put(key, entry);
+        }
+    }
+
+    /**
+     * Drop every pair that involves this user
+     * Versions already cover profile saves; this covers the window where the save landed
+     * before the new embeddings reached Vertex AI and a stale score got cached under the new version
+     */
+    public void invalidateUser(String userId) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values().removeIf(entry -> entry.userId1.equals(userId) || entry.userId2.equals(userId));
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Stripe stripeFor(long key) {
+        // Fold the high bits in so both halves of the pair hash pick the stripe
+        int h = (int) (key ^ (key >>> 32));
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    private static long pairKey(String userId1, String userId2) {
+        return ((long) userId1.hashCode() << 32) ^ (userId2.hashCode() & 0xffffffffL);
+    }
+
+    private static final class Stripe extends LinkedHashMap<Long, Entry> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(capacity * 4 / 3 + 1, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Immutable snapshot of one pairwise result
+     * Absent breakdown fields (incomplete profiles / failed requirements) are flagged, not boxed
+     */
+    private static final class Entry {
+        final String userId1;
+        final String userId2;
+        final long version1;
+        final long version2;
+
+        final double mutualScore;
+        final double similarityScore;
+        final boolean meetsRequirements;
+        final boolean isLowMatch;
+        final String failureReason;
+
+        final boolean hasBreakdown;
+        final double attributeScore;
+        final double embeddingScore;
+        final double forwardScore;
+        final double reverseScore;
+
+        Entry(String userId1, long version1, String userId2, long version2, Map<String, Object> result) {
+            this.userId1 = userId1;
+            this.userId2 = userId2;
+            this.version1 = version1;
+            this.version2 = version2;
+
+            this.mutualScore = (double) result.get("mutualScore");
+            this.similarityScore = (double) result.get("similarityScore");
+            this.meetsRequirements = Boolean.TRUE.equals(result.get("meetsRequirements"));
+            this.isLowMatch = Boolean.TRUE.equals(result.get("isLowMatch"));
+            this.failureReason = (String) result.get("failureReason");
+
+            this.hasBreakdown = result.containsKey("attributeScore");
+            this.attributeScore = hasBreakdown ? (double) result.get("attributeScore") : 0.0;
+            this.embeddingScore = hasBreakdown ? (double) result.get("embeddingScore") : 0.0;
+            this.forwardScore = hasBreakdown ? (double) result.get("forwardScore") : 0.0;
+            this.reverseScore = hasBreakdown ? (double) result.get("reverseScore") : 0.0;
+        }
+
+        boolean matches(String userId1, long version1, String userId2, long version2) {
+            return this.version1 == version1 && this.version2 == version2 &&
+                   this.userId1.equals(userId1) && this.userId2.equals(userId2);
+        }
+
+        Map<String, Object> toResult() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("mutualScore", mutualScore);
+            result.put("similarityScore", similarityScore);
+            result.put("meetsRequirements", meetsRequirements);
+            result.put("isLowMatch", isLowMatch);
+
+            if (failureReason != null) {
+                result.put("failureReason", failureReason);
+            }
+
+            if (hasBreakdown) {
+                result.put("normalizedUserId1", userId1);
+                result.put("normalizedUserId2", userId2);
+                result.put("attributeScore", attributeScore);
+                result.put("embeddingScore", embeddingScore);
+                result.put("forwardScore", forwardScore);
+                result.put("reverseScore", reverseScore);
+            }
+            return result;
+        }
+    }
+}
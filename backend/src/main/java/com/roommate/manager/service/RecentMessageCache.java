@@ -0,0 +1,322 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.MessageModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The newest messages of recently opened conversations, so the first history page skips Mongo
+ *
+ * - One ring buffer per conversation holding its newest messages in (timestamp, _id) order,
+ *   always a contiguous run ending at the latest message (or the whole conversation when "complete")
+ * - Buffers are created from a first-page read (seed) and then kept current by sends, reads and
+ *   deletes; a write for a conversation that has no buffer is ignored
+ * - Striped access-ordered maps, each bounded by its share of chat.recent-messages-cache.max-messages;
+ *   the least recently used conversations are dropped first
+ * - Per instance, like the SSE emitter registry. Only writes handled or consumed here are seen, and
+ *   the chat consumers use fixed group ids, so each event reaches one instance only. With several
+ *   instances a buffer can miss other instances' sends, reads and deletes; it is served for at most
+ *   chat.recent-messages-cache.max-age-seconds after its seed and then re-read from Mongo.
+ *   A single instance sees every write and can use a long max age.
+ */
+@Service
+public class RecentMessageCache {
+
+    private static final int STRIPES = 16; // Must be a power of two
+    private static final int WRITE_STAMPS_PER_STRIPE = 1024;
+
+    private static final Comparator<MessageModel> KEYSET_ORDER = Comparator
+            .comparing(MessageModel::getTimestamp)
+            .thenComparing(MessageModel::getId);
+
+    private final int perConversation;
+    private final long maxAgeNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public RecentMessageCache(@Value("${chat.recent-messages-cache.per-conversation:64}") int perConversation,
+                              @Value("${chat.recent-messages-cache.max-messages:50000}") int maxMessages,
+                              @Value("${chat.recent-messages-cache.max-age-seconds:30}") long maxAgeSeconds) {
+        this.perConversation = Math.max(1, perConversation);
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(0, maxAgeSeconds));
+        int perStripe = Math.max(this.perConversation, maxMessages / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Up to count newest messages of the conversation, newest first (copies)
+     * @return null when the conversation isn't cached, its buffer is past the max age, or the buffer
+     *         can't tell whether older messages exist
+     */
+    public List<MessageModel> newest(String conversationId, int count) {
+        Stripe stripe = stripeFor(conversationId);
+        synchronized (stripe) {
+            Ring ring = stripe.get(conversationId);
+            if (ring != null && System.nanoTime() - ring.seededAt > maxAgeNanos) {
+                stripe.remove(conversationId);
+                stripe.messages -= ring.size;
+                return null;
+            }
+            if (ring == null || (ring.size < count && !ring.complete)) {
+                return null;
+            }
+
+            int n = Math.min(count, ring.size);
+            List<MessageModel> newestFirst = new ArrayList<>(n);
+            for (int i = ring.size - 1; i >= ring.size - n; i--) {
+                newestFirst.add(copy(ring.get(i)));
+            }
+            return newestFirst;
+        }
+    }
+
+    /**
+     * Write stamp to take before reading a first page from Mongo and pass back to seed()
+     */
+    public long stamp(String conversationId) {
+        Stripe stripe = stripeFor(conversationId);
+        synchronized (stripe) {
+            return stripe.writeStamp(conversationId);
+        }
+    }
+
+    /**
+     * (Re)create the conversation's buffer from a first page read from Mongo
+     * Skipped if a write reached the conversation since the stamp was taken, since the page may already be stale
+     *
+     * @param newestFirst The newest messages, newest first
+     * @param complete    True when newestFirst is the whole conversation
+     */
+    public void seed(String conversationId, List<MessageModel> newestFirst, boolean complete, long stamp) {
+        Stripe stripe = stripeFor(conversationId);
+        synchronized (stripe) {
+            if (stripe.writeStamp(conversationId) != stamp || newestFirst.isEmpty()) {
+                return;
+            }
+            Ring previous = stripe.remove(conversationId);
+            if (previous != null) {
+                stripe.messages -= previous.size;
+            }
+
+            int n = Math.min(newestFirst.size(), perConversation);
+            Ring ring = new Ring(perConversation, complete && n == newestFirst.size());
+            for (int i = n - 1; i >= 0; i--) {
+                ring.add(copy(newestFirst.get(i)));
+            }
+            stripe.put(conversationId, ring);
+            stripe.messages += ring.size;
+            stripe.trim();
+        }
+    }
+
+    /**
+     * A message was saved (or its chat.message.sent event consumed); duplicates are ignored
+     */
+    public void append(MessageModel message) {
+        Stripe stripe = stripeFor(message.getConversationId());
+        synchronized (stripe) {
+            stripe.recordWrite(message.getConversationId());
+            Ring ring = stripe.get(message.getConversationId());
+            if (ring == null) {
+                return;
+            }
+            int before = ring.size;
+            ring.add(copy(message));
+            stripe.messages += ring.size - before;
+            stripe.trim();
+        }
+    }
+
+    /**
+     * A message was deleted
+     */
+    public void remove(String conversationId, String messageId) {
+        Stripe stripe = stripeFor(conversationId);
+        synchronized (stripe) {
+            stripe.recordWrite(conversationId);
+            Ring ring = stripe.get(conversationId);
+            if (ring != null && ring.remove(messageId)) {
+                stripe.messages--;
+            }
+        }
+    }
+
+    /**
+     * Apply a mark-as-read: unread messages to the recipient that match the selection become read
+     */
+    public void markRead(String conversationId, String recipientId, Predicate<MessageModel> selection, LocalDateTime readAt) {
+        Stripe stripe = stripeFor(conversationId);
+        synchronized (stripe) {
+            stripe.recordWrite(conversationId);
+            Ring ring = stripe.get(conversationId);
+            if (ring == null) {
+                return;
+            }
+            for (int i = 0; i < ring.size; i++) {
+                MessageModel message = ring.get(i);
+                if (!message.isRead() && recipientId.equals(message.getRecipientId()) && selection.test(message)) {
+                    message.setRead(true);
+                    message.setReadAt(truncate(readAt));
+                }
+            }
+        }
+    }
+
+    /**
+     * Detached copy; timestamps are cut to Mongo's millisecond precision so cursors built from
+     * cached messages compare the same way as ones built from stored messages
+     */
+    private static MessageModel copy(MessageModel source) {
+        MessageModel copy = new MessageModel();
+        copy.setId(source.getId());
+        copy.setConversationId(source.getConversationId());
+        copy.setSenderId(source.getSenderId());
+        copy.setRecipientId(source.getRecipientId());
+        copy.setContent(source.getContent());
+        copy.setTimestamp(truncate(source.getTimestamp()));
+        copy.setRead(source.isRead());
+        copy.setReadAt(truncate(source.getReadAt()));
+        return copy;
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time) {
+        return time != null ? time.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+
+    private Stripe stripeFor(String conversationId) {
+        int h = conversationId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    /**
+     * Conversations of one stripe, least recently used first, bounded by total messages held
+     *
+     * Write stamps: each write takes the next value of the stripe's clock and records it for its
+     * conversation, so a seed only races with writes to the same conversation. The stamps map is
+     * bounded; a conversation without a recorded stamp reads as the newest stamp evicted, which
+     * only ever moves forward, so an eviction can fail a pending seed but never let a stale one in.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Ring> {
+        private final int maxMessages;
+        private int messages;
+        private long clock;
+        private long evictedStamp;
+        private final LinkedHashMap<String, Long> writeStamps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > WRITE_STAMPS_PER_STRIPE) {
+                    evictedStamp = Math.max(evictedStamp, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Stripe(int maxMessages) {
+            super(16, 0.75f, true);
+            this.maxMessages = maxMessages;
+        }
+
+        long writeStamp(String conversationId) {
+            return writeStamps.getOrDefault(conversationId, evictedStamp);
+        }
+
+        void recordWrite(String conversationId) {
+            writeStamps.put(conversationId, ++clock);
+        }
+
+        void trim() {
+            Iterator<Ring> eldest = values().iterator();
+            while (messages > maxMessages && eldest.hasNext()) {
+                messages -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Fixed-capacity buffer in (timestamp, _id) order, oldest at head; a full buffer drops its oldest
+     */
+    private static final class Ring {
+        private final MessageModel[] slots;
+        private final long seededAt = System.nanoTime();
+        private int head;
+        private int size;
+        private boolean complete;
+
+        Ring(int capacity, boolean complete) {
+            this.slots = new MessageModel[capacity];
+            this.complete = complete;
+        }
+
+        MessageModel get(int i) {
+            return slots[(head + i) % slots.length];
+        }
+
+        private void set(int i, MessageModel message) {
+            slots[(head + i) % slots.length] = message;
+        }
+
+        void add(MessageModel message) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (get(i).getId().equals(message.getId())) {
+                    return;
+                }
+            }
+
+            // Messages arrive nearly in order, so the slot is found scanning back from the newest
+            int pos = size;
+            while (pos > 0 && KEYSET_ORDER.compare(get(pos - 1), message) > 0) {
+                pos--;
+            }
+            if (pos == 0 && !complete && size > 0) {
+                // Older than everything held: messages in between are unknown
+                return;
+            }
+
+            if (size == slots.length) {
+                if (pos == 0) {
+                    return;
+                }
+                slots[head] = null;
+                head = (head + 1) % slots.length;
+                size--;
+                pos--;
+                complete = false;
+            }
+
+            for (int i = size; i > pos; i--) {
+                set(i, get(i - 1));
+            }
+            set(pos, message);
+            size++;
+        }
+
+        boolean remove(String messageId) {
+            for (int i = 0; i < size; i++) {
+                if (get(i).getId().equals(messageId)) {
+                    for (int j = i; j < size - 1; j++) {
+                        set(j, get(j + 1));
+                    }
+                    set(size - 1, null);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -2,16 +2,22 @@ package com.roommate.manager.service;
 
 import com.google.cloud.aiplatform.v1.*;
 import com.roommate.manager.config.VectorSearchConfig;
+import com.roommate.manager.jfr.MatchingStageEvent;
+import com.roommate.manager.jfr.VertexRpcEvent;
+import com.roommate.manager.logging.MatchTrace;
+import com.roommate.manager.metrics.MatchingMetrics;
+import com.roommate.manager.model.MatchableProfile;
+import com.roommate.manager.model.MatchingProfileModel;
 import com.roommate.manager.model.UserModel;
 import com.roommate.manager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +31,11 @@ import java.util.stream.Collectors;
 @Service
 public class UltraOptimizedVectorSearchService {
 
+    private static final Logger log = LoggerFactory.getLogger(UltraOptimizedVectorSearchService.class);
+
+    // Queries per multi-query findNeighbors request
+    private static final int EMBEDDING_BATCH_SIZE = 50;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -35,7 +46,13 @@ public class UltraOptimizedVectorSearchService {
     private AttributeMatchingService attributeMatchingService;
 
     @Autowired
-    private MongoTemplate mongoTemplate;
+    private UserHydrationService userHydrationService;
+
+    @Autowired
+    private PairwiseScoreCache pairwiseScoreCache;
+
+    @Autowired
+    private MatchingMetrics matchingMetrics;
 
     @Autowired
     private com.google.auth.oauth2.GoogleCredentials credentials;
@@ -51,6 +68,33 @@ public class UltraOptimizedVectorSearchService {
      * Result: All embeddings come from Vertex AI, zero AI API calls for generation!
      */
     public List<Map<String, Object>> findMutualMatchesUltraFast(String userId, int topK) throws IOException {
+        return findMutualMatchesUltraFast(userId, topK, MatchProgressListener.NONE);
+    }
+
+    /**
+     * Same as findMutualMatchesUltraFast, reporting each scored candidate and stage timing to the listener
+     * Matches passed to the listener carry the slim matching projection; the returned top K carry full users
+     */
+    public List<Map<String, Object>> findMutualMatchesUltraFast(String userId, int topK, MatchProgressListener listener) throws IOException {
+        return matchingMetrics.timeOperation("findMutualMatchesUltraFast",
+            () -> hydrateUsers(scoreMutualMatchesUltraFast(userId, topK, listener)));
+    }
+
+    /**
+     * Scores only: "user" in each result is the slim MatchingProfileModel, never the full document
+     * For callers that only persist IDs and scores (materialized match lists)
+     */
+    public List<Map<String, Object>> scoreMutualMatchesUltraFast(String userId, int topK) throws IOException {
+        return scoreMutualMatchesUltraFast(userId, topK, MatchProgressListener.NONE);
+    }
+
+    private List<Map<String, Object>> scoreMutualMatchesUltraFast(String userId, int topK, MatchProgressListener listener) throws IOException {
+        try (MatchTrace.Scope trace = MatchTrace.begin(userId)) {
+            return rankCandidates(userId, topK, listener);
+        }
+    }
+
+    private List<Map<String, Object>> rankCandidates(String userId, int topK, MatchProgressListener listener) throws IOException {
         Optional<UserModel> userOptional = userRepository.findById(userId);
         if (userOptional.isEmpty()) {
             throw new IllegalArgumentException("User not found: " + userId);
@@ -58,20 +102,20 @@ public class UltraOptimizedVectorSearchService {
 
         UserModel targetUser = userOptional.get();
 
-        System.out.println("=== ULTRA-FAST MATCHING START ===");
-        System.out.println("Target user: " + targetUser.getFirstName());
-        long startTime = System.currentTimeMillis();
+        log.info("=== ULTRA-FAST MATCHING START === target user: {} ({})", targetUser.getFirstName(), userId);
+        long startTime = System.nanoTime();
+        MatchingStageEvent stage1Event = MatchingStageEvent.start(MatchingMetrics.ULTRAFAST, "candidateSearch", userId);
 
         // STAGE 1: Get profile embeddings from Vertex AI for candidates
         // LOCATION-AWARE: Prioritize same-city candidates
         int vectorSearchLimit = Math.min(topK * 10, 150);
-        String userCityCode = getCityCode(targetUser.getZipCode());
+        String userCityCode = targetUser.getCityCode();
 
         List<CandidateWithEmbeddings> candidates = new ArrayList<>();
 
         // First: Try to get same-city candidates
         if (userCityCode != null) {
-            System.out.println("🌆 STAGE 1a: Searching for same-city candidates (city code: " + userCityCode + ")");
+            log.debug("🌆 STAGE 1a: Searching for same-city candidates (city code: {})", userCityCode);
             List<CandidateWithEmbeddings> sameCityCandidates = queryVertexAIWithEmbeddings(
                 userId + "_preference",
                 "profile",
@@ -80,13 +124,13 @@ public class UltraOptimizedVectorSearchService {
                 userCityCode  // Filter by city code
             );
             candidates.addAll(sameCityCandidates);
-            System.out.println("   Found " + sameCityCandidates.size() + " same-city candidates");
+            log.debug("Found {} same-city candidates", sameCityCandidates.size());
         }
 
         // Second: If we don't have enough candidates, search globally
         if (candidates.size() < vectorSearchLimit) {
             int remainingNeeded = vectorSearchLimit - candidates.size();
-            System.out.println("🌍 STAGE 1b: Searching globally for " + remainingNeeded + " more candidates");
+            log.debug("🌍 STAGE 1b: Searching globally for {} more candidates", remainingNeeded);
             List<CandidateWithEmbeddings> globalCandidates = queryVertexAIWithEmbeddings(
                 userId + "_preference",
                 "profile",
@@ -105,40 +149,60 @@ public class UltraOptimizedVectorSearchService {
                     candidates.add(candidate);
                 }
             }
-            System.out.println("   Added " + (candidates.size() - existingIds.size()) + " global candidates");
+            log.debug("Added {} global candidates", candidates.size() - existingIds.size());
         }
 
-        long stage1Time = System.currentTimeMillis() - startTime;
-        System.out.println("STAGE 1: Got " + candidates.size() + " candidates with embeddings in " + stage1Time + "ms");
+        long stage1Nanos = System.nanoTime() - startTime;
+        long stage1Time = TimeUnit.NANOSECONDS.toMillis(stage1Nanos);
+        log.debug("STAGE 1: Got {} candidates with embeddings in {}ms", candidates.size(), stage1Time);
+        matchingMetrics.recordStage(MatchingMetrics.ULTRAFAST, "candidateSearch", stage1Nanos, candidates.size());
+        stage1Event.finish(candidates.size());
+        listener.onStage("candidateSearch", stage1Time, candidates.size());
 
         // STAGE 2: Get preference embeddings for candidates (batch query)
-        long stage2Start = System.currentTimeMillis();
+        long stage2Start = System.nanoTime();
+        MatchingStageEvent stage2Event = MatchingStageEvent.start(MatchingMetrics.ULTRAFAST, "preferenceEmbeddings", userId);
         Map<String, List<Float>> preferenceEmbeddings = batchGetPreferenceEmbeddings(
             candidates.stream()
                 .map(c -> c.userId)
                 .collect(Collectors.toList())
         );
-        long stage2Time = System.currentTimeMillis() - stage2Start;
-        System.out.println("STAGE 2: Got " + preferenceEmbeddings.size() + " preference embeddings in " + stage2Time + "ms");
+        long stage2Nanos = System.nanoTime() - stage2Start;
+        long stage2Time = TimeUnit.NANOSECONDS.toMillis(stage2Nanos);
+        log.debug("STAGE 2: Got {} preference embeddings in {}ms", preferenceEmbeddings.size(), stage2Time);
+        matchingMetrics.recordStage(MatchingMetrics.ULTRAFAST, "preferenceEmbeddings", stage2Nanos, preferenceEmbeddings.size());
+        stage2Event.finish(preferenceEmbeddings.size());
+        listener.onStage("preferenceEmbeddings", stage2Time, preferenceEmbeddings.size());
 
         // STAGE 3: Get target user's embeddings from Vertex AI
-        long stage3Start = System.currentTimeMillis();
+        long stage3Start = System.nanoTime();
+        MatchingStageEvent stage3Event = MatchingStageEvent.start(MatchingMetrics.ULTRAFAST, "targetEmbeddings", userId);
         List<Float> targetProfileEmbedding = getEmbeddingFromVertexAI(userId + "_profile");
         List<Float> targetPreferenceEmbedding = getEmbeddingFromVertexAI(userId + "_preference");
-        long stage3Time = System.currentTimeMillis() - stage3Start;
-        System.out.println("STAGE 3: Got target embeddings in " + stage3Time + "ms");
+        long stage3Nanos = System.nanoTime() - stage3Start;
+        long stage3Time = TimeUnit.NANOSECONDS.toMillis(stage3Nanos);
+        log.debug("STAGE 3: Got target embeddings in {}ms", stage3Time);
+        matchingMetrics.recordStage(MatchingMetrics.ULTRAFAST, "targetEmbeddings", stage3Nanos, 2);
+        stage3Event.finish(2);
+        listener.onStage("targetEmbeddings", stage3Time, 2);
 
         // STAGE 4: Score candidates using embeddings from Vertex AI
-        long stage4Start = System.currentTimeMillis();
+        long stage4Start = System.nanoTime();
+        MatchingStageEvent stage4Event = MatchingStageEvent.start(MatchingMetrics.ULTRAFAST, "scoring", userId);
         List<Map<String, Object>> scoredResults = scoreCandidatesWithVertexAIEmbeddings(
             targetUser,
             targetProfileEmbedding,
             targetPreferenceEmbedding,
             candidates,
-            preferenceEmbeddings
+            preferenceEmbeddings,
+            listener
         );
-        long stage4Time = System.currentTimeMillis() - stage4Start;
-        System.out.println("STAGE 4: Scored candidates in " + stage4Time + "ms");
+        long stage4Nanos = System.nanoTime() - stage4Start;
+        long stage4Time = TimeUnit.NANOSECONDS.toMillis(stage4Nanos);
+        log.debug("STAGE 4: Scored candidates in {}ms", stage4Time);
+        matchingMetrics.recordStage(MatchingMetrics.ULTRAFAST, "scoring", stage4Nanos, scoredResults.size());
+        stage4Event.finish(scoredResults.size());
+        listener.onStage("scoring", stage4Time, scoredResults.size());
 
         // Sort and return top K
         List<Map<String, Object>> topMatches = scoredResults.stream()
@@ -149,14 +213,36 @@ public class UltraOptimizedVectorSearchService {
             .limit(topK)
             .collect(Collectors.toList());
 
-        long totalTime = System.currentTimeMillis() - startTime;
-        System.out.println("=== MATCHING COMPLETE: " + topMatches.size() + " matches in " + totalTime + "ms ===");
-        System.out.println("Breakdown: Stage1=" + stage1Time + "ms, Stage2=" + stage2Time + "ms, " +
-                          "Stage3=" + stage3Time + "ms, Stage4=" + stage4Time + "ms\n");
+        long totalTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        log.info("=== MATCHING COMPLETE: {} matches in {}ms === Stage1={}ms, Stage2={}ms, Stage3={}ms, Stage4={}ms",
+            topMatches.size(), totalTime, stage1Time, stage2Time, stage3Time, stage4Time);
 
         return topMatches;
     }
 
+    /**
+     * Swap the slim matching projection for the full user document, for the final top K only
+     * One $in query; matches whose user was deleted in the meantime are dropped
+     */
+    private List<Map<String, Object>> hydrateUsers(List<Map<String, Object>> matches) {
+        if (matches.isEmpty()) {
+            return matches;
+        }
+
+        List<String> userIds = matches.stream().map(m -> (String) m.get("userId")).toList();
+        Map<String, UserModel> usersById = userHydrationService.findAllById(userIds);
+
+        List<Map<String, Object>> hydrated = new ArrayList<>(matches.size());
+        for (Map<String, Object> match : matches) {
+            UserModel user = usersById.get((String) match.get("userId"));
+            if (user != null) {
+                match.put("user", user);
+                hydrated.add(match);
+            }
+        }
+        return hydrated;
+    }
+
     /**
      * Query Vertex AI and get BOTH user data AND their embeddings
      * This is the key optimization - embeddings come back in the query response!
@@ -208,7 +294,7 @@ public class UltraOptimizedVectorSearchService {
                 .addQueries(query)
                 .build();
 
-            FindNeighborsResponse response = matchServiceClient.findNeighbors(request);
+            FindNeighborsResponse response = findNeighbors(matchServiceClient, request);
             List<CandidateWithEmbeddings> results = new ArrayList<>();
 
             if (response.getNearestNeighborsCount() > 0) {
@@ -239,12 +325,11 @@ public class UltraOptimizedVectorSearchService {
                     candidateMap.put(userId, candidate);
                 }
 
-                // Batch fetch users from MongoDB
+                // Batch fetch the matching projection from MongoDB (full documents are loaded for the top K only)
                 if (!userIds.isEmpty()) {
-                    Query mongoQuery = new Query(Criteria.where("_id").in(userIds));
-                    List<UserModel> users = mongoTemplate.find(mongoQuery, UserModel.class);
+                    Collection<MatchingProfileModel> users = userHydrationService.findMatchingProfiles(userIds).values();
 
-                    for (UserModel user : users) {
+                    for (MatchingProfileModel user : users) {
                         CandidateWithEmbeddings candidate = candidateMap.get(user.getId());
                         if (candidate != null) {
                             candidate.user = user;
@@ -266,22 +351,84 @@ public class UltraOptimizedVectorSearchService {
      * Uses Vertex AI to fetch stored embeddings (no regeneration!)
      */
     private Map<String, List<Float>> batchGetPreferenceEmbeddings(List<String> userIds) throws IOException {
-        Map<String, List<Float>> result = new HashMap<>();
+        List<String> datapointIds = userIds.stream()
+            .map(userId -> userId + "_preference")
+            .collect(Collectors.toList());
 
-        // For each user, query Vertex AI for their preference embedding
-        // TODO: Optimize this with multi-query support if Vertex AI supports it
+        Map<String, List<Float>> byDatapoint = batchGetEmbeddingsFromVertexAI(datapointIds);
+
+        Map<String, List<Float>> result = new HashMap<>();
         for (String userId : userIds) {
-            try {
-                List<Float> embedding = getEmbeddingFromVertexAI(userId + "_preference");
+            List<Float> embedding = byDatapoint.get(userId + "_preference");
+            if (embedding != null) {
                 result.put(userId, embedding);
-            } catch (Exception e) {
-                System.err.println("Failed to get preference embedding for " + userId + ": " + e.getMessage());
+            } else {
+                log.warn("Failed to get preference embedding for {}", userId);
             }
         }
 
         return result;
     }
 
+    /**
+     * Get many embeddings from Vertex AI using multi-query findNeighbors requests
+     * One client, one RPC per chunk of datapoints - missing or failed datapoints are simply absent from the result
+     */
+    private Map<String, List<Float>> batchGetEmbeddingsFromVertexAI(List<String> datapointIds) throws IOException {
+        Map<String, List<Float>> result = new HashMap<>();
+        if (datapointIds.isEmpty()) {
+            return result;
+        }
+
+        String vdbEndpoint = String.format("%s:443", config.getPublicEndpointDomain());
+        MatchServiceSettings matchSettings = MatchServiceSettings.newBuilder()
+            .setEndpoint(vdbEndpoint)
+            .setCredentialsProvider(() -> credentials)
+            .build();
+
+        try (MatchServiceClient matchServiceClient = MatchServiceClient.create(matchSettings)) {
+            for (int from = 0; from < datapointIds.size(); from += EMBEDDING_BATCH_SIZE) {
+                List<String> chunk = datapointIds.subList(from, Math.min(from + EMBEDDING_BATCH_SIZE, datapointIds.size()));
+
+                FindNeighborsRequest.Builder request = FindNeighborsRequest.newBuilder()
+                    .setIndexEndpoint(config.getIndexEndpointPath())
+                    .setDeployedIndexId(config.getDeployedIndexId());
+
+                // Same self-query as getEmbeddingFromVertexAI (k=1 returns the datapoint itself), one per id
+                for (String datapointId : chunk) {
+                    request.addQueries(FindNeighborsRequest.Query.newBuilder()
+                        .setDatapoint(IndexDatapoint.newBuilder().setDatapointId(datapointId).build())
+                        .setNeighborCount(1)
+                        .build());
+                }
+
+                FindNeighborsResponse response;
+                try {
+                    response = findNeighbors(matchServiceClient, request.build());
+                } catch (Exception e) {
+                    // A failed chunk only loses its own datapoints, like a failed single lookup did
+                    log.warn("Failed to get {} embeddings from Vertex AI: {}", chunk.size(), e.getMessage());
+                    continue;
+                }
+
+                for (int i = 0; i < response.getNearestNeighborsCount(); i++) {
+                    FindNeighborsResponse.NearestNeighbors neighbors = response.getNearestNeighbors(i);
+                    if (neighbors.getNeighborsCount() == 0) {
+                        continue;
+                    }
+                    // Results come back in query order; the id echoes the query datapoint when set
+                    String datapointId = !neighbors.getId().isEmpty() ? neighbors.getId() : chunk.get(i);
+                    result.put(datapointId, neighbors.getNeighbors(0).getDatapoint().getFeatureVectorList());
+                }
+            }
+
+            return result;
+
+        } catch (Exception e) {
+            throw new IOException("Error fetching embeddings from Vertex AI: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Get a specific embedding from Vertex AI by datapoint ID
      * Uses the index to fetch pre-computed embeddings
@@ -311,7 +458,7 @@ public class UltraOptimizedVectorSearchService {
                 .addQueries(query)
                 .build();
 
-            FindNeighborsResponse response = matchServiceClient.findNeighbors(request);
+            FindNeighborsResponse response = findNeighbors(matchServiceClient, request);
 
             if (response.getNearestNeighborsCount() > 0) {
                 FindNeighborsResponse.NearestNeighbors neighbors = response.getNearestNeighbors(0);
@@ -328,6 +475,20 @@ public class UltraOptimizedVectorSearchService {
         }
     }
 
+    /**
+     * findNeighbors wrapped in a VertexRpc JFR event
+     */
+    private FindNeighborsResponse findNeighbors(MatchServiceClient matchServiceClient, FindNeighborsRequest request) {
+        VertexRpcEvent rpc = VertexRpcEvent.start(VertexRpcEvent.FIND_NEIGHBORS, request.getQueriesCount());
+        FindNeighborsResponse response = null;
+        try {
+            response = matchServiceClient.findNeighbors(request);
+            return response;
+        } finally {
+            rpc.finish(request, response);
+        }
+    }
+
     /**
      * Score candidates using embeddings from Vertex AI (no regeneration!)
      */
@@ -336,25 +497,31 @@ public class UltraOptimizedVectorSearchService {
             List<Float> targetProfileEmb,
             List<Float> targetPreferenceEmb,
             List<CandidateWithEmbeddings> candidates,
-            Map<String, List<Float>> preferenceEmbeddings) {
+            Map<String, List<Float>> preferenceEmbeddings,
+            MatchProgressListener listener) {
 
         List<Map<String, Object>> results = new ArrayList<>();
         int skippedIncomplete = 0;
         int skippedHardRequirements = 0;
         int skippedMissingEmbeddings = 0;
 
-        System.out.println("\n🔍 SCORING CANDIDATES FOR: " + targetUser.getFirstName() + " " + targetUser.getLastName());
-        System.out.println("   Target user profile complete: " + isProfileComplete(targetUser));
-        System.out.println("   Total candidates to evaluate: " + candidates.size());
+        boolean trace = MatchTrace.enabled();
+        if (trace) {
+            MatchTrace.LOG.info("🔍 SCORING CANDIDATES FOR: {} {} (profile complete: {}, candidates: {})",
+                targetUser.getFirstName(), targetUser.getLastName(), isProfileComplete(targetUser), candidates.size());
+        }
 
         for (CandidateWithEmbeddings candidate : candidates) {
             try {
-                UserModel candidateUser = candidate.user;
+                MatchableProfile candidateUser = candidate.user;
 
                 // Skip incomplete profiles
                 if (!isProfileComplete(candidateUser)) {
                     skippedIncomplete++;
-                    System.out.println("   ❌ Skipped " + candidateUser.getFirstName() + ": Incomplete profile");
+                    matchingMetrics.recordSkip(MatchingMetrics.ULTRAFAST, MatchingMetrics.SKIP_INCOMPLETE);
+                    if (trace) {
+                        MatchTrace.LOG.info("❌ Skipped {}: Incomplete profile", candidateUser.getFirstName());
+                    }
                     continue;
                 }
 
@@ -364,9 +531,13 @@ public class UltraOptimizedVectorSearchService {
 
                 if (!aWantsBRequirements || !bWantsARequirements) {
                     skippedHardRequirements++;
-                    System.out.println("   ❌ Skipped " + candidateUser.getFirstName() + ": Hard requirements failed");
-                    System.out.println("      - " + targetUser.getFirstName() + " wants " + candidateUser.getFirstName() + ": " + aWantsBRequirements);
-                    System.out.println("      - " + candidateUser.getFirstName() + " wants " + targetUser.getFirstName() + ": " + bWantsARequirements);
+                    matchingMetrics.recordSkip(MatchingMetrics.ULTRAFAST, MatchingMetrics.SKIP_HARD_REQUIREMENTS);
+                    if (trace) {
+                        MatchTrace.LOG.info("❌ Skipped {}: Hard requirements failed ({} wants {}: {}, {} wants {}: {})",
+                            candidateUser.getFirstName(),
+                            targetUser.getFirstName(), candidateUser.getFirstName(), aWantsBRequirements,
+                            candidateUser.getFirstName(), targetUser.getFirstName(), bWantsARequirements);
+                    }
                     continue;
                 }
 
@@ -376,7 +547,10 @@ public class UltraOptimizedVectorSearchService {
 
                 if (candidateProfileEmb == null || candidatePreferenceEmb == null) {
                     skippedMissingEmbeddings++;
-                    System.out.println("   ❌ Skipped " + candidateUser.getFirstName() + ": Missing embeddings");
+                    matchingMetrics.recordSkip(MatchingMetrics.ULTRAFAST, MatchingMetrics.SKIP_MISSING_EMBEDDINGS);
+                    if (trace) {
+                        MatchTrace.LOG.info("❌ Skipped {}: Missing embeddings", candidateUser.getFirstName());
+                    }
                     continue; // Skip if embeddings not found
                 }
 
@@ -406,35 +580,29 @@ public class UltraOptimizedVectorSearchService {
                 result.put("embeddingScore", mutualEmbeddingScore);
 
                 results.add(result);
-                System.out.println("   ✅ Added " + candidateUser.getFirstName() + ": mutualScore=" + String.format("%.2f%%", hybridMutualScore * 100));
+                listener.onMatch(result);
+                if (trace) {
+                    MatchTrace.LOG.info("✅ Added {}: mutualScore={}", candidateUser.getFirstName(), String.format("%.2f%%", hybridMutualScore * 100));
+                }
 
             } catch (Exception e) {
-                System.err.println("Error scoring candidate " + candidate.userId + ": " + e.getMessage());
-                e.printStackTrace();
+                log.warn("Error scoring candidate {}", candidate.userId, e);
             }
         }
 
-        // Print summary
-        System.out.println("\n📊 SCORING SUMMARY FOR: " + targetUser.getFirstName());
-        System.out.println("   ✅ Successful matches: " + results.size());
-        System.out.println("   ❌ Skipped (incomplete): " + skippedIncomplete);
-        System.out.println("   ❌ Skipped (hard requirements): " + skippedHardRequirements);
-        System.out.println("   ❌ Skipped (missing embeddings): " + skippedMissingEmbeddings);
-        System.out.println("   📝 Total evaluated: " + candidates.size());
+        // Summary
+        log.info("📊 SCORING SUMMARY FOR {}: {} matches, skipped {} incomplete / {} hard requirements / {} missing embeddings, {} evaluated",
+            targetUser.getFirstName(), results.size(), skippedIncomplete, skippedHardRequirements, skippedMissingEmbeddings, candidates.size());
 
         if (results.isEmpty()) {
-            System.out.println("\n⚠️  WARNING: NO MATCHES FOUND FOR " + targetUser.getFirstName());
-            System.out.println("   Possible reasons:");
-            System.out.println("   1. All candidates have incomplete profiles");
-            System.out.println("   2. Hard requirements are too restrictive");
-            System.out.println("   3. Missing embeddings in Vertex AI");
-            System.out.println("   4. Target user's preferences not set up properly");
+            log.warn("⚠️ NO MATCHES FOUND FOR {} - candidates incomplete, hard requirements too restrictive, " +
+                "missing Vertex AI embeddings or target preferences not set up", targetUser.getFirstName());
         }
 
         return results;
     }
 
-    private boolean isProfileComplete(UserModel user) {
+    private boolean isProfileComplete(MatchableProfile user) {
         if (user == null) return false;
         boolean hasName = user.getFirstName() != null && !user.getFirstName().trim().isEmpty() &&
                          user.getLastName() != null && !user.getLastName().trim().isEmpty();
@@ -444,17 +612,6 @@ public class UltraOptimizedVectorSearchService {
         return hasName && hasGender && hasZipCode && hasDateOfBirth;
     }
 
-    /**
-     * Extract city code from zipcode (first 3 digits)
-     * In US zipcodes, the first 3 digits represent the sectional center facility (roughly a city/metro area)
-     */
-    private String getCityCode(String zipCode) {
-        if (zipCode == null || zipCode.length() < 3) {
-            return null;
-        }
-        return zipCode.substring(0, 3);
-    }
-
     private double calculateCosineSimilarity(List<Float> vec1, List<Float> vec2) {
         if (vec1.size() != vec2.size()) {
             return 0.0;
@@ -489,6 +646,14 @@ public class UltraOptimizedVectorSearchService {
      * @return Map containing mutualScore, similarityScore, and detailed breakdown
      */
     public Map<String, Object> calculatePairwiseScores(String userId1, String userId2) throws IOException {
+        return matchingMetrics.timeOperation("calculatePairwiseScores", () -> {
+            try (MatchTrace.Scope trace = MatchTrace.begin(userId1, userId2)) {
+                return computePairwiseScores(userId1, userId2);
+            }
+        });
+    }
+
+    private Map<String, Object> computePairwiseScores(String userId1, String userId2) throws IOException {
         // Normalize user order to ensure consistent scoring (alphabetical order)
         // This guarantees symmetry: calculatePairwiseScores(A, B) === calculatePairwiseScores(B, A)
         String normalizedUserId1, normalizedUserId2;
@@ -500,32 +665,156 @@ public class UltraOptimizedVectorSearchService {
             normalizedUserId2 = userId1;
         }
 
-        // Get both users using normalized order
-        Optional<UserModel> user1Optional = userRepository.findById(normalizedUserId1);
-        Optional<UserModel> user2Optional = userRepository.findById(normalizedUserId2);
+        // Cheap version probe (_id + lastUpdatedAt only) - a hit skips the full fetch and all Vertex AI calls
+        Map<String, Long> versions = new HashMap<>();
+        for (UserModel probe : userHydrationService.findAllInOrder(List.of(normalizedUserId1, normalizedUserId2), "lastUpdatedAt")) {
+            versions.put(probe.getId(), PairwiseScoreCache.versionOf(probe.getLastUpdatedAt()));
+        }
+
+        if (versions.size() < 2) {
+            throw new IllegalArgumentException("One or both users not found");
+        }
+
+        Map<String, Object> cached = pairwiseScoreCache.get(
+            normalizedUserId1, versions.get(normalizedUserId1),
+            normalizedUserId2, versions.get(normalizedUserId2));
+        if (cached != null) {
+            cached.put("userId1", userId1);
+            cached.put("userId2", userId2);
+            return cached;
+        }
+
+        // Cache miss - get both users in one round trip
+        Map<String, UserModel> usersById = userHydrationService.findAllById(List.of(normalizedUserId1, normalizedUserId2));
+
+        UserModel user1 = usersById.get(normalizedUserId1);
+        UserModel user2 = usersById.get(normalizedUserId2);
 
-        if (user1Optional.isEmpty() || user2Optional.isEmpty()) {
+        if (user1 == null || user2 == null) {
             throw new IllegalArgumentException("One or both users not found");
         }
 
-        UserModel user1 = user1Optional.get();
-        UserModel user2 = user2Optional.get();
+        return scorePair(userId1, userId2, user1, user2, this::getEmbeddingFromVertexAI);
+    }
+
+    /**
+     * Calculate scores between one user and many counterparts in a single pass
+     * Loads all users with one $in query and every missing embedding with one multi-query Vertex AI call
+     *
+     * @param userId Target user ID
+     * @param counterpartIds Users to validate against the target
+     * @return counterpartId -> result in the same shape as calculatePairwiseScores, in request order
+     *         (counterparts that don't exist are left out)
+     */
+    public Map<String, Map<String, Object>> calculatePairwiseScoresBatch(String userId, List<String> counterpartIds) throws IOException {
+        List<String> distinctIds = counterpartIds.stream()
+            .filter(id -> id != null && !id.equals(userId))
+            .distinct()
+            .collect(Collectors.toList());
 
-        System.out.println("====== ULTRA-FAST PAIRWISE MATCHING ======");
-        System.out.println("Original request: userId1=" + userId1 + ", userId2=" + userId2);
-        System.out.println("Normalized order: userId1=" + normalizedUserId1 + ", userId2=" + normalizedUserId2);
-        System.out.println("User 1: " + user1.getFirstName() + " " + user1.getLastName());
-        System.out.println("User 2: " + user2.getFirstName() + " " + user2.getLastName());
+        // Target + every counterpart in one round trip
+        List<String> allIds = new ArrayList<>(distinctIds);
+        allIds.add(userId);
+        Map<String, UserModel> usersById = userHydrationService.findAllById(allIds);
+
+        UserModel targetUser = usersById.get(userId);
+        if (targetUser == null) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+
+        long targetVersion = PairwiseScoreCache.versionOf(targetUser.getLastUpdatedAt());
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        List<UserModel> misses = new ArrayList<>();
+
+        for (String counterpartId : distinctIds) {
+            UserModel counterpart = usersById.get(counterpartId);
+            if (counterpart == null) {
+                continue;
+            }
+
+            long counterpartVersion = PairwiseScoreCache.versionOf(counterpart.getLastUpdatedAt());
+            Map<String, Object> cached = userId.compareTo(counterpartId) < 0
+                ? pairwiseScoreCache.get(userId, targetVersion, counterpartId, counterpartVersion)
+                : pairwiseScoreCache.get(counterpartId, counterpartVersion, userId, targetVersion);
+
+            if (cached != null) {
+                cached.put("userId1", userId);
+                cached.put("userId2", counterpartId);
+                results.put(counterpartId, cached);
+            } else {
+                results.put(counterpartId, null); // Placeholder keeps request order
+                misses.add(counterpart);
+            }
+        }
+
+        // Only complete profiles get as far as the embedding comparison
+        Map<String, List<Float>> embeddings = Map.of();
+        if (!misses.isEmpty() && isProfileComplete(targetUser)) {
+            List<String> datapointIds = new ArrayList<>();
+            datapointIds.add(userId + "_profile");
+            datapointIds.add(userId + "_preference");
+            for (UserModel counterpart : misses) {
+                if (isProfileComplete(counterpart)) {
+                    datapointIds.add(counterpart.getId() + "_profile");
+                    datapointIds.add(counterpart.getId() + "_preference");
+                }
+            }
+            embeddings = batchGetEmbeddingsFromVertexAI(datapointIds);
+        }
+
+        Map<String, List<Float>> fetched = embeddings;
+        EmbeddingLookup lookup = datapointId -> {
+            List<Float> embedding = fetched.get(datapointId);
+            if (embedding == null) {
+                throw new IOException("Embedding not found for: " + datapointId);
+            }
+            return embedding;
+        };
+
+        for (UserModel counterpart : misses) {
+            try (MatchTrace.Scope trace = MatchTrace.begin(userId, counterpart.getId())) {
+                Map<String, Object> result = userId.compareTo(counterpart.getId()) < 0
+                    ? scorePair(userId, counterpart.getId(), targetUser, counterpart, lookup)
+                    : scorePair(userId, counterpart.getId(), counterpart, targetUser, lookup);
+                results.put(counterpart.getId(), result);
+            }
+        }
+
+        log.info("✓ Batch validation for {}: {} pairs, {} from cache, {} embeddings fetched",
+            userId, results.size(), results.size() - misses.size(), embeddings.size());
+        return results;
+    }
+
+    /**
+     * Score one pair whose users are already loaded in normalized (alphabetical) order
+     * Shared by the single and batch validate paths; every outcome except an embedding failure is cached
+     */
+    private Map<String, Object> scorePair(String userId1, String userId2, UserModel user1, UserModel user2,
+                                          EmbeddingLookup embeddings) {
+        String normalizedUserId1 = user1.getId();
+        String normalizedUserId2 = user2.getId();
+
+        // Versions the result is cached under (read with the documents themselves)
+        long version1 = PairwiseScoreCache.versionOf(user1.getLastUpdatedAt());
+        long version2 = PairwiseScoreCache.versionOf(user2.getLastUpdatedAt());
+
+        boolean trace = MatchTrace.enabled();
+        if (trace) {
+            MatchTrace.LOG.info("====== ULTRA-FAST PAIRWISE MATCHING ====== request {} / {}, normalized {} ({} {}) / {} ({} {})",
+                userId1, userId2,
+                normalizedUserId1, user1.getFirstName(), user1.getLastName(),
+                normalizedUserId2, user2.getFirstName(), user2.getLastName());
+        }
 
         // Check if both profiles are complete
         if (!isProfileComplete(user1) || !isProfileComplete(user2)) {
-            System.out.println("❌ One or both users have incomplete profiles - Returning 0% score");
-            System.out.println("==========================================\n");
+            log.debug("❌ {} / {}: one or both users have incomplete profiles - Returning 0% score", normalizedUserId1, normalizedUserId2);
             Map<String, Object> result = new HashMap<>();
             result.put("mutualScore", 0.0);
             result.put("similarityScore", 0.0);
             result.put("meetsRequirements", false);
             result.put("isLowMatch", true);
+            pairwiseScoreCache.put(normalizedUserId1, version1, normalizedUserId2, version2, result);
             return result;
         }
 
@@ -535,20 +824,15 @@ public class UltraOptimizedVectorSearchService {
         boolean user1WantsUser2 = attributeMatchingService.meetsHardRequirements(user1, user2);
         boolean user2WantsUser1 = attributeMatchingService.meetsHardRequirements(user2, user1);
 
-        System.out.println("Hard Requirements Check:");
-        System.out.println("  " + user1.getFirstName() + " wants " + user2.getFirstName() + ": " + user1WantsUser2);
-        System.out.println("  " + user2.getFirstName() + " wants " + user1.getFirstName() + ": " + user2WantsUser1);
+        if (trace) {
+            MatchTrace.LOG.info("Hard Requirements Check: {} wants {}: {}, {} wants {}: {}",
+                user1.getFirstName(), user2.getFirstName(), user1WantsUser2,
+                user2.getFirstName(), user1.getFirstName(), user2WantsUser1);
+        }
 
         if (!user1WantsUser2 || !user2WantsUser1) {
             // Hard requirements not met - return 0 scores
-            System.out.println("❌ FAILED HARD REQUIREMENTS - Returning 0% score");
-            if (!user1WantsUser2) {
-                System.out.println("   Reason: " + user1.getFirstName() + " doesn't want " + user2.getFirstName());
-            }
-            if (!user2WantsUser1) {
-                System.out.println("   Reason: " + user2.getFirstName() + " doesn't want " + user1.getFirstName());
-            }
-            System.out.println("==========================================\n");
+            log.debug("❌ {} / {}: FAILED HARD REQUIREMENTS - Returning 0% score", normalizedUserId1, normalizedUserId2);
             result.put("mutualScore", 0.0);
             result.put("similarityScore", 0.0);
             result.put("meetsRequirements", false);
@@ -556,18 +840,17 @@ public class UltraOptimizedVectorSearchService {
             result.put("failureReason", !user1WantsUser2 && !user2WantsUser1 ? "Both hard requirements failed" :
                                         !user1WantsUser2 ? user1.getFirstName() + " requirements not met" :
                                         user2.getFirstName() + " requirements not met");
+            pairwiseScoreCache.put(normalizedUserId1, version1, normalizedUserId2, version2, result);
             return result;
         }
 
         try {
             // Get embeddings directly from Vertex AI (NO regeneration!)
             // Use normalized IDs to ensure consistent embedding retrieval
-            List<Float> user1ProfileEmb = getEmbeddingFromVertexAI(normalizedUserId1 + "_profile");
-            List<Float> user1PreferenceEmb = getEmbeddingFromVertexAI(normalizedUserId1 + "_preference");
-            List<Float> user2ProfileEmb = getEmbeddingFromVertexAI(normalizedUserId2 + "_profile");
-            List<Float> user2PreferenceEmb = getEmbeddingFromVertexAI(normalizedUserId2 + "_preference");
-
-            System.out.println("✓ Successfully fetched all embeddings from Vertex AI");
+            List<Float> user1ProfileEmb = embeddings.get(normalizedUserId1 + "_profile");
+            List<Float> user1PreferenceEmb = embeddings.get(normalizedUserId1 + "_preference");
+            List<Float> user2ProfileEmb = embeddings.get(normalizedUserId2 + "_profile");
+            List<Float> user2PreferenceEmb = embeddings.get(normalizedUserId2 + "_preference");
 
             // Calculate attribute-based compatibility scores
             double forwardAttributeScore = attributeMatchingService.calculateCompatibilityScore(user1, user2);
@@ -587,17 +870,15 @@ public class UltraOptimizedVectorSearchService {
             double hybridReverseScore = (reverseAttributeScore * 0.5) + (reverseEmbeddingScore * 0.5);
             double hybridMutualScore = (hybridForwardScore + hybridReverseScore) / 2.0;
 
-            System.out.println("\n📊 SCORE CALCULATION:");
-            System.out.println("  Forward (" + user1.getFirstName() + " → " + user2.getFirstName() + "):");
-            System.out.println("    Attribute: " + String.format("%.2f", forwardAttributeScore));
-            System.out.println("    Embedding: " + String.format("%.2f", forwardEmbeddingScore));
-            System.out.println("    Hybrid: " + String.format("%.2f", hybridForwardScore));
-            System.out.println("  Reverse (" + user2.getFirstName() + " → " + user1.getFirstName() + "):");
-            System.out.println("    Attribute: " + String.format("%.2f", reverseAttributeScore));
-            System.out.println("    Embedding: " + String.format("%.2f", reverseEmbeddingScore));
-            System.out.println("    Hybrid: " + String.format("%.2f", hybridReverseScore));
-            System.out.println("  MUTUAL SCORE: " + String.format("%.2f (%.0f%%)", hybridMutualScore, hybridMutualScore * 100));
-            System.out.println("  Similarity: " + String.format("%.2f (%.0f%%)", similarityScore, similarityScore * 100));
+            if (trace) {
+                MatchTrace.LOG.info("📊 SCORE CALCULATION: forward {} → {} attribute={} embedding={} hybrid={}; " +
+                        "reverse {} → {} attribute={} embedding={} hybrid={}; mutual={} similarity={}",
+                    user1.getFirstName(), user2.getFirstName(),
+                    String.format("%.2f", forwardAttributeScore), String.format("%.2f", forwardEmbeddingScore), String.format("%.2f", hybridForwardScore),
+                    user2.getFirstName(), user1.getFirstName(),
+                    String.format("%.2f", reverseAttributeScore), String.format("%.2f", reverseEmbeddingScore), String.format("%.2f", hybridReverseScore),
+                    String.format("%.2f", hybridMutualScore), String.format("%.2f", similarityScore));
+            }
 
             // Build result - return original user IDs as requested
             result.put("userId1", userId1);
@@ -615,26 +896,19 @@ public class UltraOptimizedVectorSearchService {
             result.put("forwardScore", hybridForwardScore);
             result.put("reverseScore", hybridReverseScore);
 
-            System.out.println("\n✅ PAIRWISE SCORE: " + user1.getFirstName() + " <-> " + user2.getFirstName() +
-                " | Mutual=" + String.format("%.0f%%", hybridMutualScore * 100) +
-                " | Similarity=" + String.format("%.0f%%", similarityScore * 100));
-            System.out.println("   This score is SYMMETRIC - same result regardless of parameter order");
-            System.out.println("==========================================\n");
+            // Symmetric - same result regardless of parameter order
+            log.debug("✅ PAIRWISE SCORE: {} <-> {} | Mutual={}% | Similarity={}%", normalizedUserId1, normalizedUserId2,
+                Math.round(hybridMutualScore * 100), Math.round(similarityScore * 100));
 
+            // Embedding fetch failures below are transient and deliberately not cached
+            pairwiseScoreCache.put(normalizedUserId1, version1, normalizedUserId2, version2, result);
             return result;
 
         } catch (IOException e) {
             // If we can't fetch embeddings from Vertex AI, fall back to 0
-            System.err.println("❌ EMBEDDING FETCH FAILED - Returning 0% score");
-            System.err.println("   Error: " + e.getMessage());
-            System.err.println("   User 1: " + normalizedUserId1 + " (" + user1.getFirstName() + ")");
-            System.err.println("   User 2: " + normalizedUserId2 + " (" + user2.getFirstName() + ")");
-            System.err.println("   This could indicate:");
-            System.err.println("   - Missing embeddings in Vertex AI index");
-            System.err.println("   - User profile was recently updated but embeddings not yet indexed");
-            System.err.println("   - Network/permission issues accessing Vertex AI");
-            e.printStackTrace();
-            System.out.println("==========================================\n");
+            // Missing/not yet indexed embeddings, or network/permission issues accessing Vertex AI
+            log.warn("❌ EMBEDDING FETCH FAILED for {} / {} - Returning 0% score: {}",
+                normalizedUserId1, normalizedUserId2, e.getMessage());
             result.put("mutualScore", 0.0);
             result.put("similarityScore", 0.0);
             result.put("meetsRequirements", false);
@@ -646,10 +920,16 @@ public class UltraOptimizedVectorSearchService {
         }
     }
 
+    // Source of stored embeddings by datapoint ID (live Vertex AI lookup or a pre-fetched batch)
+    @FunctionalInterface
+    private interface EmbeddingLookup {
+        List<Float> get(String datapointId) throws IOException;
+    }
+
     // Helper class to hold candidate with their Vertex AI embeddings
     private static class CandidateWithEmbeddings {
         String userId;
-        UserModel user;
+        MatchingProfileModel user;      // Slim projection - only what scoring needs
         List<Float> profileEmbedding;  // From Vertex AI!
         double similarityScore;
     }
@@ -0,0 +1,176 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.InboxEntryModel;
+import com.roommate.manager.model.UnreadTotalModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-user total unread count, maintained incrementally on send (+1) and read (-n)
+ *
+ * Mongo (unread_totals) holds the authoritative value, changed only with an atomic $inc whose
+ * result comes back in the same round trip. That result is kept in a striped in-memory map, so
+ * SSE pushes and /api/chat/unread reads don't go back to Mongo.
+ *
+ * Every $inc also bumps a per-user seq, and totals travel with their seq. Results from concurrent
+ * sends / reads (and the Kafka events carrying them) can arrive in any order; only a total at
+ * least as new as the one already known is kept or pushed.
+ */
+@Service
+public class UnreadTotalService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadTotalService.class);
+
+    private static final int STRIPES = 16; // Must be a power of two
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${chat.unread-totals-backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    /**
+     * A total and the seq of the $inc that produced it
+     */
+    public record UnreadTotal(long total, long seq) {
+    }
+
+    public UnreadTotalService(@Value("${chat.unread-totals-cache.max-entries:50000}") int maxEntries) {
+        int perStripe = Math.max(16, maxEntries / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Current total, from memory when known
+     */
+    public long get(String userId) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            UnreadTotal cached = stripe.get(userId);
+            if (cached != null) {
+                return cached.total();
+            }
+        }
+
+        UnreadTotalModel stored = mongoTemplate.findById(userId, UnreadTotalModel.class);
+        if (stored == null) {
+            return 0L;
+        }
+        long total = Math.max(0, stored.getTotal());
+        remember(userId, total, stored.getSeq());
+        return total;
+    }
+
+    /**
+     * Apply a change atomically in Mongo and return the new total with its seq
+     */
+    public UnreadTotal add(String userId, long delta) {
+        UnreadTotalModel updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("total", delta).inc("seq", 1),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                UnreadTotalModel.class
+        );
+
+        long total = updated != null ? updated.getTotal() : 0L;
+        long seq = updated != null ? updated.getSeq() : 0L;
+        if (total < 0) {
+            // Drifted below zero (e.g. unread messages deleted); re-anchor without losing concurrent increments
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(userId).and("total").lt(0)),
+                    new Update().set("total", 0),
+                    UnreadTotalModel.class
+            );
+            total = 0;
+        }
+
+        remember(userId, total, seq);
+        return new UnreadTotal(total, seq);
+    }
+
+    /**
+     * Record a total computed elsewhere (e.g. carried in a Kafka event)
+     * Returns false, keeping the known total, when a newer seq has already been seen
+     */
+    public boolean remember(String userId, long total, long seq) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            UnreadTotal cached = stripe.get(userId);
+            if (cached != null && cached.seq() > seq) {
+                return false;
+            }
+            stripe.put(userId, new UnreadTotal(total, seq));
+            return true;
+        }
+    }
+
+    /**
+     * Seed unread_totals from the inbox for users who have no total yet
+     * One server-side $group + $merge; existing totals are kept
+     * Seeded documents have no seq yet, which reads as 0 until their first $inc
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void backfillTotals() {
+        if (!backfillEnabled || mongoTemplate.estimatedCount(UnreadTotalModel.class) > 0) {
+            return;
+        }
+
+        try {
+            Aggregation seed = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("unreadCount").gt(0)),
+                    Aggregation.group("userId").sum("unreadCount").as("total"),
+                    MergeOperation.builder()
+                            .intoCollection(mongoTemplate.getCollectionName(UnreadTotalModel.class))
+                            .whenDocumentsMatch(MergeOperation.WhenDocumentsMatch.keepExistingDocument())
+                            .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                            .build()
+            );
+            mongoTemplate.aggregate(seed, InboxEntryModel.class, UnreadTotalModel.class);
+            log.info("📬 Seeded unread totals from the inbox");
+        } catch (Exception e) {
+            // Users without a seeded total start counting from their next message
+            log.warn("⚠️ Unread total backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private Stripe stripeFor(String userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, UnreadTotal> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UnreadTotal> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.MatchableProfile;
+import com.roommate.manager.model.MatchingProfileModel;
+import com.roommate.manager.model.UserModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Loads many users in one round trip
+ * Use this instead of calling findById in a loop - every lookup is a single $in query,
+ * and results come back in the order of the given IDs (unknown IDs are dropped)
+ */
+@Service
+public class UserHydrationService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Load users in the order of the given IDs
+     *
+     * @param ids User IDs (duplicates and nulls are ignored)
+     * @param fields Optional projection - only these fields are populated (_id is always included)
+     */
+    public List<UserModel> findAllInOrder(Collection<String> ids, String... fields) {
+        return new ArrayList<>(findAllById(ids, fields).values());
+    }
+
+    /**
+     * Same as findAllInOrder, keyed by user ID (iteration order follows the given IDs)
+     */
+    public Map<String, UserModel> findAllById(Collection<String> ids, String... fields) {
+        return load(ids, UserModel.class, Arrays.asList(fields));
+    }
+
+    /**
+     * Load the slim matching projection of the given users, keyed by user ID in the given order
+     */
+    public Map<String, MatchingProfileModel> findMatchingProfiles(Collection<String> ids) {
+        return load(ids, MatchingProfileModel.class, MatchingProfileModel.PROJECTED_FIELDS);
+    }
+
+    private <T extends MatchableProfile> Map<String, T> load(Collection<String> ids, Class<T> type, List<String> fields) {
+        Set<String> orderedIds = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null) {
+                orderedIds.add(id);
+            }
+        }
+        if (orderedIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        Query query = new Query(Criteria.where("_id").in(orderedIds));
+        fields.forEach(field -> query.fields().include(field));
+
+        Map<String, T> byId = new HashMap<>();
+        for (T document : mongoTemplate.find(query, type, mongoTemplate.getCollectionName(UserModel.class))) {
+            byId.put(document.getId(), document);
+        }
+
+        // Mongo returns $in matches in natural order - restore the caller's order
+        Map<String, T> ordered = new LinkedHashMap<>();
+        for (String id : orderedIds) {
+            T document = byId.get(id);
+            if (document != null) {
+                ordered.put(id, document);
+            }
+        }
+        return ordered;
+    }
+}
@@ -3,13 +3,25 @@ package com.roommate.manager.service;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.aiplatform.v1.*;
 import com.roommate.manager.config.VectorSearchConfig;
+import com.roommate.manager.jfr.VertexRpcEvent;
+import com.roommate.manager.logging.MatchTrace;
+import com.roommate.manager.metrics.MatchingMetrics;
 import com.roommate.manager.model.UserModel;
 import com.roommate.manager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Service to search for similar roommates using Vertex AI Vector Search deployed index
@@ -17,6 +29,8 @@ import java.util.*;
 @Service
 public class VectorSearchService {
 
+    private static final Logger log = LoggerFactory.getLogger(VectorSearchService.class);
+
     @Autowired
     private EmbeddingService embeddingService;
 
@@ -32,6 +46,18 @@ public class VectorSearchService {
     @Autowired
     private GoogleCredentials credentials;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserHydrationService userHydrationService;
+
+    @Autowired
+    private MatchingMetrics matchingMetrics;
+
+    @Value("${matching.legacy.cursor-batch-size:200}")
+    private int cursorBatchSize;
+
     /**
      * Find similar roommates with the same LIFESTYLE as this user
      * Compares: User A's PROFILE vs Other users' PROFILES
@@ -71,6 +97,21 @@ public class VectorSearchService {
      * @return List of users ranked by hybrid compatibility score
      */
     public List<Map<String, Object>> findMutualMatches(String userId, int topK) throws IOException {
+        return findMutualMatches(userId, topK, MatchProgressListener.NONE);
+    }
+
+    /**
+     * Same as findMutualMatches, reporting each scored candidate and stage timing to the listener
+     */
+    public List<Map<String, Object>> findMutualMatches(String userId, int topK, MatchProgressListener listener) throws IOException {
+        return matchingMetrics.timeOperation("findMutualMatches", () -> {
+            try (MatchTrace.Scope trace = MatchTrace.begin(userId)) {
+                return computeMutualMatches(userId, topK, listener);
+            }
+        });
+    }
+
+    private List<Map<String, Object>> computeMutualMatches(String userId, int topK, MatchProgressListener listener) throws IOException {
         // Get the target user
         Optional<UserModel> userOptional = userRepository.findById(userId);
         if (userOptional.isEmpty()) {
@@ -79,92 +120,173 @@ public class VectorSearchService {
 
         UserModel targetUser = userOptional.get();
 
-        // Get all users from database
-        List<UserModel> allUsers = userRepository.findAll();
-        List<Map<String, Object>> results = new ArrayList<>();
+        // Hard requirements need a city - without one nobody can match
+        Query candidateQuery = buildCandidateQuery(targetUser);
+        if (candidateQuery == null) {
+            log.info("HYBRID MATCHING: {} has no usable zip code - no candidates", targetUser.getFirstName());
+            return List.of();
+        }
 
         // Generate embeddings for target user (for later use)
+        long targetStart = System.nanoTime();
         List<Float> aPreferenceEmbedding = embeddingService.generatePreferenceEmbedding(targetUser);
         List<Float> aProfileEmbedding = embeddingService.generateProfileEmbedding(targetUser);
+        long targetNanos = System.nanoTime() - targetStart;
+        matchingMetrics.recordStage(MatchingMetrics.HYBRID, "targetEmbeddings", targetNanos, 2);
+        listener.onStage("targetEmbeddings", TimeUnit.NANOSECONDS.toMillis(targetNanos), 2);
+
+        long scoringStart = System.nanoTime();
+        int processed = 0;
+        int scored = 0;
+
+        // Only the best topK are kept while streaming, so memory stays flat however many users match
+        PriorityQueue<Map<String, Object>> best = new PriorityQueue<>(
+            Comparator.comparingDouble(result -> (double) result.get("mutualScore")));
+
+        log.info("HYBRID MATCHING: Streaming pre-filtered candidates for {}", targetUser.getFirstName());
+        boolean trace = MatchTrace.enabled();
+
+        // Stream candidates with a Mongo cursor - same city, mutual gender preference and complete profile
+        // are already filtered server-side; the checks below stay authoritative
+        try (Stream<UserModel> candidates = mongoTemplate.stream(candidateQuery, UserModel.class)) {
+            for (UserModel candidateUser : (Iterable<UserModel>) candidates::iterator) {
+                processed++;
+
+                // Skip self
+                if (candidateUser.getId().equals(userId)) {
+                    continue;
+                }
 
-        System.out.println("HYBRID MATCHING: Processing " + allUsers.size() + " users for " + targetUser.getFirstName());
-
-        for (UserModel candidateUser : allUsers) {
-            // Skip self
-            if (candidateUser.getId().equals(userId)) {
-                continue;
-            }
-
-            // Skip users with incomplete profiles (missing critical fields)
-            if (!isProfileComplete(candidateUser)) {
-                System.out.println("  Skipping " +
-                    (candidateUser.getFirstName() != null ? candidateUser.getFirstName() : "null") +
-                    " (incomplete profile - missing required fields)");
-                continue;
-            }
-
-            // STEP 1: Hard requirements filter (bidirectional)
-            boolean aWantsBRequirements = attributeMatchingService.meetsHardRequirements(targetUser, candidateUser);
-            boolean bWantsARequirements = attributeMatchingService.meetsHardRequirements(candidateUser, targetUser);
-
-            if (!aWantsBRequirements || !bWantsARequirements) {
-                System.out.println("  Filtered out " + candidateUser.getFirstName() + " (hard requirements not met)");
-                continue; // Skip if hard requirements not met
-            }
-
-            // STEP 2: Calculate attribute-based compatibility scores
-            double forwardAttributeScore = attributeMatchingService.calculateCompatibilityScore(targetUser, candidateUser);
-            double reverseAttributeScore = attributeMatchingService.calculateCompatibilityScore(candidateUser, targetUser);
-            double mutualAttributeScore = (forwardAttributeScore + reverseAttributeScore) / 2.0;
-
-            // STEP 3: Calculate embedding-based similarity (semantic/personality match)
-            List<Float> bProfileEmbedding = embeddingService.generateProfileEmbedding(candidateUser);
-            List<Float> bPreferenceEmbedding = embeddingService.generatePreferenceEmbedding(candidateUser);
+                // Skip users with incomplete profiles (missing critical fields)
+                if (!isProfileComplete(candidateUser)) {
+                    matchingMetrics.recordSkip(MatchingMetrics.HYBRID, MatchingMetrics.SKIP_INCOMPLETE);
+                    if (trace) {
+                        MatchTrace.LOG.info("Skipping {} (incomplete profile - missing required fields)", candidateUser.getFirstName());
+                    }
+                    continue;
+                }
 
-            double forwardEmbeddingScore = calculateCosineSimilarity(aPreferenceEmbedding, bProfileEmbedding);
-            double reverseEmbeddingScore = calculateCosineSimilarity(bPreferenceEmbedding, aProfileEmbedding);
-            double mutualEmbeddingScore = (forwardEmbeddingScore + reverseEmbeddingScore) / 2.0;
+                // STEP 1: Hard requirements filter (bidirectional)
+                boolean aWantsBRequirements = attributeMatchingService.meetsHardRequirements(targetUser, candidateUser);
+                boolean bWantsARequirements = attributeMatchingService.meetsHardRequirements(candidateUser, targetUser);
 
-            // STEP 4: Combine scores with weighting
-            // 50% attribute-based (lifestyle compatibility) + 50% embedding-based (personality/vibe)
-            // Balanced approach: personality and lifestyle are equally important
-            double hybridForwardScore = (forwardAttributeScore * 0.5) + (forwardEmbeddingScore * 0.5);
-            double hybridReverseScore = (reverseAttributeScore * 0.5) + (reverseEmbeddingScore * 0.5);
-            double hybridMutualScore = (hybridForwardScore + hybridReverseScore) / 2.0;
+                if (!aWantsBRequirements || !bWantsARequirements) {
+                    matchingMetrics.recordSkip(MatchingMetrics.HYBRID, MatchingMetrics.SKIP_HARD_REQUIREMENTS);
+                    if (trace) {
+                        MatchTrace.LOG.info("Filtered out {} (hard requirements not met)", candidateUser.getFirstName());
+                    }
+                    continue; // Skip if hard requirements not met
+                }
 
-            System.out.println("  " + candidateUser.getFirstName() + ": " +
-                "Attr=" + String.format("%.2f", mutualAttributeScore) +
-                " Embed=" + String.format("%.2f", mutualEmbeddingScore) +
-                " Hybrid=" + String.format("%.2f", hybridMutualScore));
+                // STEP 2: Calculate attribute-based compatibility scores
+                double forwardAttributeScore = attributeMatchingService.calculateCompatibilityScore(targetUser, candidateUser);
+                double reverseAttributeScore = attributeMatchingService.calculateCompatibilityScore(candidateUser, targetUser);
+                double mutualAttributeScore = (forwardAttributeScore + reverseAttributeScore) / 2.0;
+
+                // STEP 3: Calculate embedding-based similarity (semantic/personality match)
+                List<Float> bProfileEmbedding = embeddingService.generateProfileEmbedding(candidateUser);
+                List<Float> bPreferenceEmbedding = embeddingService.generatePreferenceEmbedding(candidateUser);
+
+                double forwardEmbeddingScore = calculateCosineSimilarity(aPreferenceEmbedding, bProfileEmbedding);
+                double reverseEmbeddingScore = calculateCosineSimilarity(bPreferenceEmbedding, aProfileEmbedding);
+                double mutualEmbeddingScore = (forwardEmbeddingScore + reverseEmbeddingScore) / 2.0;
+
+                // STEP 4: Combine scores with weighting
+                // 50% attribute-based (lifestyle compatibility) + 50% embedding-based (personality/vibe)
+                // Balanced approach: personality and lifestyle are equally important
+                double hybridForwardScore = (forwardAttributeScore * 0.5) + (forwardEmbeddingScore * 0.5);
+                double hybridReverseScore = (reverseAttributeScore * 0.5) + (reverseEmbeddingScore * 0.5);
+                double hybridMutualScore = (hybridForwardScore + hybridReverseScore) / 2.0;
+
+                if (trace) {
+                    MatchTrace.LOG.info("{}: Attr={} Embed={} Hybrid={}", candidateUser.getFirstName(),
+                        String.format("%.2f", mutualAttributeScore),
+                        String.format("%.2f", mutualEmbeddingScore),
+                        String.format("%.2f", hybridMutualScore));
+                }
 
-            // Build result
-            Map<String, Object> result = new HashMap<>();
-            result.put("user", candidateUser);
-            result.put("userId", candidateUser.getId());
-            result.put("description", embeddingService.userProfileToText(candidateUser));
+                // Build result
+                Map<String, Object> result = new HashMap<>();
+                result.put("user", candidateUser);
+                result.put("userId", candidateUser.getId());
 
-            // Compatibility scores
-            result.put("forwardScore", hybridForwardScore);
-            result.put("reverseScore", hybridReverseScore);
-            result.put("mutualScore", hybridMutualScore);
+                // Compatibility scores
+                result.put("forwardScore", hybridForwardScore);
+                result.put("reverseScore", hybridReverseScore);
+                result.put("mutualScore", hybridMutualScore);
 
-            // Detailed breakdown
-            result.put("attributeScore", mutualAttributeScore);
-            result.put("embeddingScore", mutualEmbeddingScore);
+                // Detailed breakdown
+                result.put("attributeScore", mutualAttributeScore);
+                result.put("embeddingScore", mutualEmbeddingScore);
 
-            results.add(result);
+                scored++;
+                best.add(result);
+                if (best.size() > topK) {
+                    best.poll(); // Drop the current lowest score
+                }
+                listener.onMatch(result);
+            }
         }
+        long scoringNanos = System.nanoTime() - scoringStart;
+        matchingMetrics.recordStage(MatchingMetrics.HYBRID, "scoring", scoringNanos, scored);
+        listener.onStage("scoring", TimeUnit.NANOSECONDS.toMillis(scoringNanos), scored);
+        log.info("HYBRID MATCHING: Processed {} candidates, scored {}", processed, scored);
 
         // Sort by hybrid mutual score and return top K
-        return results.stream()
+        return best.stream()
             .sorted((a, b) -> Double.compare(
                 (double) b.get("mutualScore"),
                 (double) a.get("mutualScore")
             ))
-            .limit(topK)
             .toList();
     }
 
+    /**
+     * Server-side version of the hard-requirement prefilter for the legacy engine
+     * - Same city: stored cityCode equals the target's (and zip code is at least 5 characters)
+     * - Gender, both ways: the target's preferred gender and the candidate's preference for the target
+     * - Complete profile: name, gender and date of birth present
+     *
+     * @return null when the target has no city code (no candidate can pass the city requirement)
+     */
+    private Query buildCandidateQuery(UserModel targetUser) {
+        String cityCode = targetUser.getCityCode();
+        if (cityCode == null) {
+            return null;
+        }
+
+        // cityCode + gender are served by city_gender_idx
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(Criteria.where("cityCode").is(cityCode));
+        filters.add(Criteria.where("_id").ne(targetUser.getId()));
+        filters.add(Criteria.where("zipCode").regex("^.{5,}"));
+        filters.add(Criteria.where("firstName").nin(null, ""));
+        filters.add(Criteria.where("lastName").nin(null, ""));
+        filters.add(Criteria.where("gender").nin(null, ""));
+        filters.add(Criteria.where("dateOfBirth").ne(null));
+
+        // What the target wants
+        if (targetUser.getPreferences() != null && targetUser.getPreferences().getGender() != null) {
+            String preferredGender = targetUser.getPreferences().getGender().toLowerCase();
+            if (!preferredGender.equals("no preference") && !preferredGender.equals("any")) {
+                filters.add(Criteria.where("gender").regex("^" + Pattern.quote(preferredGender) + "$", "i"));
+            }
+        }
+
+        // What the candidate wants
+        List<Criteria> candidateAccepts = new ArrayList<>();
+        candidateAccepts.add(Criteria.where("preferences.gender").is(null));
+        candidateAccepts.add(Criteria.where("preferences.gender").regex("^(no preference|any)$", "i"));
+        if (targetUser.getGender() != null) {
+            candidateAccepts.add(Criteria.where("preferences.gender").regex("^" + Pattern.quote(targetUser.getGender()) + "$", "i"));
+        }
+        filters.add(new Criteria().orOperator(candidateAccepts));
+
+        Query query = new Query(new Criteria().andOperator(filters));
+        query.cursorBatchSize(cursorBatchSize);
+        return query;
+    }
+
     /**
      * Calculate compatibility scores between exactly TWO users (efficient for real-time updates)
      * This avoids the expensive operation of comparing against all users
@@ -185,14 +307,12 @@ public class VectorSearchService {
         UserModel user1 = user1Optional.get();
         UserModel user2 = user2Optional.get();
 
-        System.out.println("====== PAIRWISE MATCHING ======");
-        System.out.println("User 1: " + user1.getFirstName() + " " + user1.getLastName());
-        System.out.println("User 2: " + user2.getFirstName() + " " + user2.getLastName());
+        log.debug("====== PAIRWISE MATCHING ====== {} {} / {} {}",
+            user1.getFirstName(), user1.getLastName(), user2.getFirstName(), user2.getLastName());
 
         // Check if both profiles are complete
         if (!isProfileComplete(user1) || !isProfileComplete(user2)) {
-            System.out.println("❌ One or both users have incomplete profiles - Returning 0% score");
-            System.out.println("===============================\n");
+            log.debug("❌ One or both users have incomplete profiles - Returning 0% score");
             Map<String, Object> result = new HashMap<>();
             result.put("mutualScore", 0.0);
             result.put("similarityScore", 0.0);
@@ -206,14 +326,13 @@ public class VectorSearchService {
         boolean user1WantsUser2 = attributeMatchingService.meetsHardRequirements(user1, user2);
         boolean user2WantsUser1 = attributeMatchingService.meetsHardRequirements(user2, user1);
 
-        System.out.println("Hard Requirements Check:");
-        System.out.println("  " + user1.getFirstName() + " wants " + user2.getFirstName() + ": " + user1WantsUser2);
-        System.out.println("  " + user2.getFirstName() + " wants " + user1.getFirstName() + ": " + user2WantsUser1);
+        log.debug("Hard Requirements Check: {} wants {}: {}, {} wants {}: {}",
+            user1.getFirstName(), user2.getFirstName(), user1WantsUser2,
+            user2.getFirstName(), user1.getFirstName(), user2WantsUser1);
 
         if (!user1WantsUser2 || !user2WantsUser1) {
             // Hard requirements not met - return 0 scores
-            System.out.println("❌ FAILED HARD REQUIREMENTS - Returning 0% score");
-            System.out.println("===============================\n");
+            log.debug("❌ FAILED HARD REQUIREMENTS - Returning 0% score");
             result.put("mutualScore", 0.0);
             result.put("similarityScore", 0.0);
             result.put("meetsRequirements", false);
@@ -259,9 +378,8 @@ public class VectorSearchService {
         result.put("forwardScore", hybridForwardScore);
         result.put("reverseScore", hybridReverseScore);
 
-        System.out.println("PAIRWISE SCORE: " + user1.getFirstName() + " <-> " + user2.getFirstName() +
-            " | Mutual=" + String.format("%.2f", hybridMutualScore) +
-            " | Similarity=" + String.format("%.2f", similarityScore));
+        log.debug("PAIRWISE SCORE: {} <-> {} | Mutual={} | Similarity={}", user1.getFirstName(), user2.getFirstName(),
+            String.format("%.2f", hybridMutualScore), String.format("%.2f", similarityScore));
 
         return result;
     }
@@ -379,6 +497,17 @@ public class VectorSearchService {
             Integer maxBudget,
             String zipCode,
             int topK
+    ) throws IOException {
+        return matchingMetrics.timeOperation("searchWithFilters",
+            () -> computeSearchWithFilters(query, minBudget, maxBudget, zipCode, topK));
+    }
+
+    private List<Map<String, Object>> computeSearchWithFilters(
+            String query,
+            Integer minBudget,
+            Integer maxBudget,
+            String zipCode,
+            int topK
     ) throws IOException {
         // Generate embedding for the query (treated as a preference)
         List<Float> queryEmbedding = embeddingService.generateEmbeddingFromText("Looking for: " + query);
@@ -468,27 +597,32 @@ public class VectorSearchService {
                 .build();
 
             // Execute the query
-            FindNeighborsResponse response = matchServiceClient.findNeighbors(request);
+            VertexRpcEvent rpc = VertexRpcEvent.start(VertexRpcEvent.FIND_NEIGHBORS, request.getQueriesCount());
+            FindNeighborsResponse response = null;
+            try {
+                response = matchServiceClient.findNeighbors(request);
+            } finally {
+                rpc.finish(request, response);
+            }
 
             // Process results
             List<Map<String, Object>> results = new ArrayList<>();
 
             if (response.getNearestNeighborsCount() > 0) {
                 FindNeighborsResponse.NearestNeighbors neighbors = response.getNearestNeighbors(0);
-                System.out.println("DEBUG: Found " + neighbors.getNeighborsCount() + " neighbors from index");
+                log.debug("Found {} neighbors from index", neighbors.getNeighborsCount());
 
+                // Collect neighbor IDs and scores first, then fetch all users in one query
+                Map<String, Double> similarityByUserId = new LinkedHashMap<>();
                 for (FindNeighborsResponse.Neighbor neighbor : neighbors.getNeighborsList()) {
                     String datapointId = neighbor.getDatapoint().getDatapointId();
-                    System.out.println("DEBUG: Processing datapoint: " + datapointId);
 
                     // Extract actual user ID (remove "_profile" suffix)
                     // Note: restricts ensure we ONLY get profile vectors, never preferences
                     String userId = datapointId.replace("_profile", "");
-                    System.out.println("DEBUG: Extracted user ID: " + userId);
 
                     // Skip excluded user (avoid self-matching)
                     if (excludeUserId != null && userId.equals(excludeUserId)) {
-                        System.out.println("DEBUG: Skipping excluded user (self)");
                         continue;
                     }
 
@@ -497,30 +631,31 @@ public class VectorSearchService {
                     // Convert distance to similarity score (cosine distance -> cosine similarity)
                     // Cosine similarity = 1 - cosine distance
                     double similarityScore = 1.0 - distance;
-                    System.out.println("DEBUG: Similarity score: " + similarityScore);
+                    log.debug("Datapoint {} -> user {}, similarity {}", datapointId, userId, similarityScore);
 
-                    // Fetch user from MongoDB
-                    Optional<UserModel> userOpt = userRepository.findById(userId);
-                    if (userOpt.isPresent()) {
-                        UserModel user = userOpt.get();
-                        System.out.println("DEBUG: Found user in MongoDB: " + user.getFirstName() + " " + user.getLastName());
+                    similarityByUserId.putIfAbsent(userId, similarityScore);
+                }
 
+                // Fetch users from MongoDB (one $in query, neighbor order preserved)
+                Map<String, UserModel> usersById = userHydrationService.findAllById(similarityByUserId.keySet());
+                for (Map.Entry<String, Double> neighbor : similarityByUserId.entrySet()) {
+                    UserModel user = usersById.get(neighbor.getKey());
+                    if (user != null) {
                         Map<String, Object> result = new HashMap<>();
                         result.put("user", user);
-                        result.put("similarityScore", similarityScore);
-                        result.put("userId", userId);
-                        result.put("description", embeddingService.userProfileToText(user));
+                        result.put("similarityScore", neighbor.getValue());
+                        result.put("userId", neighbor.getKey());
 
                         results.add(result);
                     } else {
-                        System.out.println("DEBUG: User NOT found in MongoDB for ID: " + userId);
+                        log.debug("User NOT found in MongoDB for ID: {}", neighbor.getKey());
                     }
                 }
             } else {
-                System.out.println("DEBUG: No neighbors found in response");
+                log.debug("No neighbors found in response");
             }
 
-            System.out.println("DEBUG: Total results: " + results.size());
+            log.debug("Total results: {}", results.size());
 
             return results;
 
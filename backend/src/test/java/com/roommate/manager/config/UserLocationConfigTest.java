@@ -0,0 +1,86 @@
+package com.roommate.manager.config;
+
+import com.roommate.manager.model.UserModel;
+import com.roommate.manager.service.PairwiseScoreCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserLocationConfigTest {
+
+    private final BeforeConvertCallback<UserModel> callback = new UserLocationConfig().userLocationCallback();
+
+    @Test
+    void editedProfileMissesTheCachedScore() {
+        LocalDateTime stored = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        PairwiseScoreCache cache = new PairwiseScoreCache(1000);
+        cache.put("a", PairwiseScoreCache.versionOf(stored), "b", 1, result(0.8));
+
+        // The client PUTs the edited profile back with the lastUpdatedAt it was served
+        UserModel edited = user("a", stored);
+        edited.setMoreAboutMe("Night owl now");
+        callback.onBeforeConvert(edited, "users");
+
+        assertTrue(edited.getLastUpdatedAt().isAfter(stored));
+        assertNull(cache.get("a", PairwiseScoreCache.versionOf(edited.getLastUpdatedAt()), "b", 1));
+
+        // Recomputed and cached under the new version
+        cache.put("a", PairwiseScoreCache.versionOf(edited.getLastUpdatedAt()), "b", 1, result(0.4));
+        assertEquals(0.4, (double) cache.get("a", PairwiseScoreCache.versionOf(edited.getLastUpdatedAt()), "b", 1).get("mutualScore"));
+    }
+
+    @Test
+    void savesInTheSameMillisecondStillGetNewVersions() {
+        UserModel user = user("a", null);
+        LocalDateTime now = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6_000_000);
+
+        user.markUpdated(now);
+        long first = PairwiseScoreCache.versionOf(user.getLastUpdatedAt());
+        user.markUpdated(now.plusNanos(999));
+        long second = PairwiseScoreCache.versionOf(user.getLastUpdatedAt());
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void timestampFromTheClientIsReplaced() {
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+        UserModel user = user("a", future);
+
+        callback.onBeforeConvert(user, "users");
+
+        assertTrue(user.getLastUpdatedAt().isBefore(future));
+    }
+
+    @Test
+    void derivedLocationFieldsAreRefreshed() {
+        UserModel user = user("a", null);
+        user.setZipCode("94107");
+
+        callback.onBeforeConvert(user, "users");
+
+        assertEquals("941", user.getCityCode());
+        assertEquals(94107, user.getZipNumber());
+    }
+
+    private static UserModel user(String id, LocalDateTime lastUpdatedAt) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setLastUpdatedAt(lastUpdatedAt);
+        return user;
+    }
+
+    private static Map<String, Object> result(double mutualScore) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("mutualScore", mutualScore);
+        result.put("similarityScore", mutualScore);
+        result.put("meetsRequirements", true);
+        result.put("isLowMatch", false);
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.roommate.manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void cursorRoundTrips() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2025, 3, 4, 5, 6, 7, 123_456_789), "65f0c0ffee");
+
+        String encoded = cursor.encode();
+
+        assertEquals(cursor, KeysetCursor.decode(encoded));
+        assertFalse(encoded.contains("=") || encoded.contains("+") || encoded.contains("/"), "URL-safe, unpadded");
+    }
+
+    @Test
+    void idMayContainTheSeparator() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2025, 3, 4, 5, 6), "a|b");
+
+        assertEquals("a|b", KeysetCursor.decode(cursor.encode()).id());
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("no-separator")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("|id")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("2025-03-04T05:06|")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("yesterday|id")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
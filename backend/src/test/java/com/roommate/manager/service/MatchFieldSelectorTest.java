@@ -0,0 +1,79 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.dto.MatchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchFieldSelectorTest {
+
+    private final MatchFieldSelector selector = new MatchFieldSelector();
+
+    @Test
+    void absentOrBlankSelectorMeansEndpointDefault() {
+        assertNull(selector.parse(null));
+        assertNull(selector.parse(""));
+        assertNull(selector.parse("   "));
+    }
+
+    @Test
+    void fieldsAreTrimmedAndEmptyItemsIgnored() {
+        assertEquals(Set.of("scores", "user"), selector.parse(" scores, ,user,"));
+    }
+
+    @Test
+    void unknownFieldIsRejectedWithTheAllowedList() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> selector.parse("scores,email"));
+
+        assertTrue(e.getMessage().contains("'email'"));
+        assertTrue(e.getMessage().contains("breakdown"));
+    }
+
+    @Test
+    void fieldNamesAreCaseSensitive() {
+        assertThrows(IllegalArgumentException.class, () -> selector.parse("Scores"));
+    }
+
+    @Test
+    void noSelectorReturnsTheRecordsUntouched() {
+        List<MatchResult> matches = List.of(match("a"));
+
+        assertSame(matches, selector.select(matches, null));
+    }
+
+    @Test
+    void selectedGroupsOnlyAlwaysWithUserId() {
+        List<?> selected = selector.select(List.of(match("a")), Set.of(MatchFieldSelector.BREAKDOWN));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) selected.get(0);
+        assertEquals(Set.of("userId", "attributeScore", "embeddingScore"), result.keySet());
+        assertEquals("a", result.get("userId"));
+        assertEquals(0.7, result.get("attributeScore"));
+    }
+
+    @Test
+    void emptySelectionKeepsOnlyUserId() {
+        List<?> selected = selector.select(List.of(match("a")), Set.of());
+
+        assertEquals(Map.of("userId", "a"), selected.get(0));
+    }
+
+    @Test
+    void mapResultsKeepOnlyPresentScoreKeys() {
+        Map<String, Object> result = Map.of("userId", "a", "mutualScore", 0.8, "attributeScore", 0.7);
+
+        List<Map<String, Object>> selected = selector.selectMaps(List.of(result),
+                Set.of(MatchFieldSelector.SCORES, MatchFieldSelector.BREAKDOWN), false);
+
+        assertEquals(Map.of("userId", "a", "mutualScore", 0.8, "attributeScore", 0.7), selected.get(0));
+    }
+
+    private static MatchResult match(String userId) {
+        return new MatchResult(userId, null, 0.6, 0.9, 0.75, 0.7, 0.8, null);
+    }
+}
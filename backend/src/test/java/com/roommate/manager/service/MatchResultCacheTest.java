@@ -0,0 +1,180 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.dto.MatchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchResultCacheTest {
+
+    private MatchResultCache cache;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MatchResultCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void topKInTheSameBucketSharesOneLoad() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("owner", 3, bucket -> {
+            loads.incrementAndGet();
+            return matches(1, "a");
+        });
+        MatchResultCache.CachedMatches second = cache.get("owner", 2, bucket -> {
+            loads.incrementAndGet();
+            return matches(2, "b");
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(1, second.version());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void concurrentMissesShareOneInFlightLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<MatchResultCache.CachedMatches> first = executor.submit(() -> cache.get("owner", 10, bucket -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return matches(1, "a");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Future<MatchResultCache.CachedMatches> second = executor.submit(() -> cache.get("owner", 10, bucket -> {
+            loads.incrementAndGet();
+            return matches(2, "b");
+        }));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).version());
+        assertEquals(1, second.get(5, TimeUnit.SECONDS).version());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void ownerInvalidatedDuringLoadIsServedButNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<MatchResultCache.CachedMatches> stale = executor.submit(() -> cache.get("owner", 3, bucket -> {
+            loading.countDown();
+            await(release);
+            return matches(1, "a");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread.sleep(1);
+        cache.invalidateOwner("owner");
+        release.countDown();
+
+        assertEquals(1, stale.get(5, TimeUnit.SECONDS).version());
+        MatchResultCache.CachedMatches reloaded = cache.get("owner", 3, bucket -> matches(2, "a"));
+        assertEquals(2, reloaded.version());
+    }
+
+    @Test
+    void invalidatingACandidateDropsEveryListMentioningThem() throws IOException {
+        cache.get("owner1", 3, bucket -> matches(1, "shared"));
+        cache.get("owner2", 3, bucket -> matches(1, "other"));
+
+        cache.invalidateUser("shared");
+
+        assertEquals(2, cache.get("owner1", 3, bucket -> matches(2, "shared")).version());
+        assertEquals(1, cache.get("owner2", 3, bucket -> matches(2, "other")).version());
+    }
+
+    @Test
+    void failedLoadsAreNotCached() throws IOException {
+        assertThrows(IOException.class, () -> cache.get("owner", 3, bucket -> {
+            throw new IOException("Vertex unavailable");
+        }));
+
+        assertEquals(1, cache.get("owner", 3, bucket -> matches(1, "a")).version());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidationMarkersArePrunedBelowCapacity() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        for (int i = 0; i < 500; i++) {
+            cache.invalidateUser("user" + i);
+        }
+        allowMarkerPrune();
+
+        cache.invalidateOwner("last");
+
+        assertTrue(cache.markerCount() <= 1, "markers " + cache.markerCount());
+    }
+
+    @Test
+    void markersNewerThanAnInFlightLoadAreKept() throws Exception {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<MatchResultCache.CachedMatches> stale = executor.submit(() -> cache.get("owner", 3, bucket -> {
+            loading.countDown();
+            await(release);
+            return matches(1, "a");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread.sleep(1);
+        cache.invalidateOwner("owner");
+        allowMarkerPrune();
+        cache.invalidateUser("someone-else");
+        release.countDown();
+
+        assertEquals(1, stale.get(5, TimeUnit.SECONDS).version());
+        assertEquals(2, cache.get("owner", 3, bucket -> matches(2, "a")).version());
+    }
+
+    private void allowMarkerPrune() {
+        AtomicLong lastPrune = (AtomicLong) ReflectionTestUtils.getField(cache, "lastMarkerPrune");
+        lastPrune.set(System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
+    }
+
+    private static MatchResultCache.CachedMatches matches(long version, String... candidateIds) {
+        List<MatchResult> results = Arrays.stream(candidateIds)
+                .map(id -> new MatchResult(id, null, 0.5, 0.5, 0.5, 0.5, 0.5, null))
+                .toList();
+        return new MatchResultCache.CachedMatches(version, LocalDateTime.now(), results);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.MatchEntryModel;
+import com.roommate.manager.model.UserMatchesModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchSnapshotStoreTest {
+
+    private MatchSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MatchSnapshotStore();
+        ReflectionTestUtils.setField(store, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(store, "maxSnapshots", 3);
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        String cursor = store.encodeCursor("3f2b-snapshot", 40);
+
+        MatchSnapshotStore.Cursor decoded = store.decodeCursor(cursor);
+
+        assertEquals("3f2b-snapshot", decoded.snapshotId());
+        assertEquals(40, decoded.offset());
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"), "URL-safe, unpadded");
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> store.decodeCursor("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> store.decodeCursor(encode("no-separator")));
+        assertThrows(IllegalArgumentException.class, () -> store.decodeCursor(encode(":10")));
+        assertThrows(IllegalArgumentException.class, () -> store.decodeCursor(encode("snapshot:ten")));
+        assertThrows(IllegalArgumentException.class, () -> store.decodeCursor(encode("snapshot:-1")));
+    }
+
+    @Test
+    void snapshotIsPinnedAgainstLaterChangesToTheStoredList() {
+        UserMatchesModel stored = stored(7, "a", "b");
+        MatchSnapshotStore.Snapshot snapshot = store.create("owner", stored);
+
+        stored.getMatches().add(new MatchEntryModel("c", 0.1, 0.1, 0.1, 0.1, 0.1));
+
+        MatchSnapshotStore.Snapshot fetched = store.get(snapshot.id());
+        assertEquals(7, fetched.version());
+        assertEquals(List.of("a", "b"), fetched.entries().stream().map(MatchEntryModel::getCandidateUserId).toList());
+    }
+
+    @Test
+    void expiredSnapshotsAreGone() throws InterruptedException {
+        ReflectionTestUtils.setField(store, "ttlSeconds", 0L);
+        MatchSnapshotStore.Snapshot snapshot = store.create("owner", stored(1, "a"));
+
+        Thread.sleep(1);
+
+        assertNull(store.get(snapshot.id()));
+        assertNull(store.get("never-existed"));
+    }
+
+    @Test
+    void oldestSnapshotIsEvictedAtCapacity() {
+        MatchSnapshotStore.Snapshot first = store.create("u1", stored(1, "a"));
+        MatchSnapshotStore.Snapshot second = store.create("u2", stored(1, "a"));
+        MatchSnapshotStore.Snapshot third = store.create("u3", stored(1, "a"));
+        MatchSnapshotStore.Snapshot fourth = store.create("u4", stored(1, "a"));
+
+        assertNull(store.get(first.id()));
+        assertNotNull(store.get(second.id()));
+        assertNotNull(store.get(third.id()));
+        assertNotNull(store.get(fourth.id()));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UserMatchesModel stored(long version, String... candidateIds) {
+        List<MatchEntryModel> entries = new ArrayList<>();
+        for (String candidateId : candidateIds) {
+            entries.add(new MatchEntryModel(candidateId, 0.5, 0.5, 0.5, 0.5, 0.5));
+        }
+
+        UserMatchesModel stored = new UserMatchesModel();
+        stored.setMatches(entries);
+        stored.setVersion(version);
+        stored.setComputedAt(LocalDateTime.now());
+        return stored;
+    }
+}
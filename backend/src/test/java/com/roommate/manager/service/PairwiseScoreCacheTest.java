@@ -0,0 +1,124 @@
+package com.roommate.manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PairwiseScoreCacheTest {
+
+    @Test
+    void hitRequiresBothProfileVersions() {
+        PairwiseScoreCache cache = new PairwiseScoreCache(1000);
+        cache.put("a", 1, "b", 1, result(0.8, true));
+
+        assertNotNull(cache.get("a", 1, "b", 1));
+        assertNull(cache.get("a", 2, "b", 1));
+        assertNull(cache.get("a", 1, "b", 2));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void newerVersionReplacesThePair() {
+        PairwiseScoreCache cache = new PairwiseScoreCache(1000);
+        cache.put("a", 1, "b", 1, result(0.8, true));
+        cache.put("a", 2, "b", 1, result(0.4, true));
+
+        assertNull(cache.get("a", 1, "b", 1));
+        assertEquals(0.4, (double) cache.get("a", 2, "b", 1).get("mutualScore"));
+    }
+
+    @Test
+    void versionIsTheProfileTimestampInMillis() {
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6_000_000);
+
+        assertEquals(0L, PairwiseScoreCache.versionOf(null));
+        assertEquals(PairwiseScoreCache.versionOf(updatedAt), PairwiseScoreCache.versionOf(updatedAt.plusNanos(999)));
+        assertNotEquals(PairwiseScoreCache.versionOf(updatedAt), PairwiseScoreCache.versionOf(updatedAt.plusNanos(1_000_000)));
+    }
+
+    @Test
+    void resultRoundTripsWithAndWithoutBreakdown() {
+        PairwiseScoreCache cache = new PairwiseScoreCache(1000);
+        cache.put("a", 1, "b", 1, result(0.8, true));
+
+        Map<String, Object> failed = new HashMap<>();
+        failed.put("mutualScore", 0.0);
+        failed.put("similarityScore", 0.0);
+        failed.put("meetsRequirements", false);
+        failed.put("isLowMatch", true);
+        failed.put("failureReason", "Budget mismatch");
+        cache.put("c", 1, "d", 1, failed);
+
+        Map<String, Object> scored = cache.get("a", 1, "b", 1);
+        assertEquals("a", scored.get("normalizedUserId1"));
+        assertEquals(0.6, (double) scored.get("forwardScore"));
+        assertFalse(scored.containsKey("failureReason"));
+
+        Map<String, Object> rejected = cache.get("c", 1, "d", 1);
+        assertEquals("Budget mismatch", rejected.get("failureReason"));
+        assertFalse(rejected.containsKey("attributeScore"));
+        assertFalse(rejected.containsKey("normalizedUserId1"));
+    }
+
+    @Test
+    void invalidateUserDropsEveryPairWithThatUser() {
+        PairwiseScoreCache cache = new PairwiseScoreCache(1000);
+        cache.put("a", 1, "b", 1, result(0.8, true));
+        cache.put("b", 1, "c", 1, result(0.7, true));
+        cache.put("c", 1, "d", 1, result(0.6, true));
+
+        cache.invalidateUser("b");
+
+        assertNull(cache.get("a", 1, "b", 1));
+        assertNull(cache.get("b", 1, "c", 1));
+        assertNotNull(cache.get("c", 1, "d", 1));
+    }
+
+    @Test
+    void sizeStaysWithinTheConfiguredBound() {
+        // 32 stripes x 16 entries (the per-stripe minimum)
+        PairwiseScoreCache cache = new PairwiseScoreCache(512);
+        for (int i = 0; i < 4000; i++) {
+            cache.put("user" + i, 1, "other" + i, 1, result(0.5, true));
+        }
+
+        int cached = 0;
+        for (int i = 0; i < 4000; i++) {
+            if (cache.get("user" + i, 1, "other" + i, 1) != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached > 0 && cached <= 512, "cached " + cached);
+
+        // The most recent insert is never the eldest entry of its stripe
+        assertNotNull(cache.get("user3999", 1, "other3999", 1));
+    }
+
+    @Test
+    void returnedMapsAreIndependentCopies() {
+        PairwiseScoreCache cache = new PairwiseScoreCache(1000);
+        cache.put("a", 1, "b", 1, result(0.8, true));
+
+        cache.get("a", 1, "b", 1).put("mutualScore", 0.0);
+
+        assertEquals(0.8, (double) cache.get("a", 1, "b", 1).get("mutualScore"));
+    }
+
+    private static Map<String, Object> result(double mutualScore, boolean meetsRequirements) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("mutualScore", mutualScore);
+        result.put("similarityScore", mutualScore);
+        result.put("meetsRequirements", meetsRequirements);
+        result.put("isLowMatch", false);
+        result.put("attributeScore", 0.7);
+        result.put("embeddingScore", 0.9);
+        result.put("forwardScore", 0.6);
+        result.put("reverseScore", 1.0);
+        return result;
+    }
+}
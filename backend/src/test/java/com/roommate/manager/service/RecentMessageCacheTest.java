@@ -0,0 +1,186 @@
+package com.roommate.manager.service;
+
+import com.roommate.manager.model.MessageModel;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMessageCacheTest {
+
+    private static final String CONVERSATION = "alice_bob";
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final RecentMessageCache cache = new RecentMessageCache(4, 50000, 600);
+
+    @Test
+    void seededBufferServesNewestFirst() {
+        seed(cache, CONVERSATION, false, message("m1", 1), message("m2", 2), message("m3", 3));
+
+        assertEquals(List.of("m3", "m2"), ids(cache.newest(CONVERSATION, 2)));
+    }
+
+    @Test
+    void incompleteBufferCannotServeMoreThanItHolds() {
+        seed(cache, CONVERSATION, false, message("m1", 1), message("m2", 2));
+
+        assertNull(cache.newest(CONVERSATION, 3));
+        assertEquals(List.of("m2", "m1"), ids(cache.newest(CONVERSATION, 2)));
+    }
+
+    @Test
+    void completeBufferServesAShortConversation() {
+        seed(cache, CONVERSATION, true, message("m1", 1), message("m2", 2));
+
+        assertEquals(List.of("m2", "m1"), ids(cache.newest(CONVERSATION, 10)));
+    }
+
+    @Test
+    void appendsKeepKeysetOrderAndIgnoreDuplicates() {
+        seed(cache, CONVERSATION, true, message("m1", 1), message("m3", 3));
+
+        cache.append(message("m2", 2));
+        cache.append(message("m3", 3));
+        cache.append(message("m4", 3)); // Same timestamp, ordered by id
+
+        assertEquals(List.of("m4", "m3", "m2", "m1"), ids(cache.newest(CONVERSATION, 10)));
+    }
+
+    @Test
+    void fullBufferDropsItsOldestAndIsNoLongerComplete() {
+        seed(cache, CONVERSATION, true, message("m1", 1), message("m2", 2), message("m3", 3), message("m4", 4));
+
+        cache.append(message("m5", 5));
+
+        assertEquals(List.of("m5", "m4", "m3", "m2"), ids(cache.newest(CONVERSATION, 4)));
+        assertNull(cache.newest(CONVERSATION, 5));
+    }
+
+    @Test
+    void messageOlderThanAnIncompleteBufferIsIgnored() {
+        seed(cache, CONVERSATION, false, message("m2", 2), message("m3", 3));
+
+        cache.append(message("m1", 1));
+
+        assertEquals(List.of("m3", "m2"), ids(cache.newest(CONVERSATION, 2)));
+    }
+
+    @Test
+    void writesWithoutABufferAreIgnored() {
+        cache.append(message("m1", 1));
+
+        assertNull(cache.newest(CONVERSATION, 1));
+    }
+
+    @Test
+    void removeAndMarkReadApplyToTheBuffer() {
+        seed(cache, CONVERSATION, true, message("m1", 1), message("m2", 2), message("m3", 3));
+
+        cache.remove(CONVERSATION, "m2");
+        cache.markRead(CONVERSATION, "bob", m -> m.getId().equals("m3"), START.plusMinutes(10));
+
+        List<MessageModel> newest = cache.newest(CONVERSATION, 10);
+        assertEquals(List.of("m3", "m1"), ids(newest));
+        assertTrue(newest.get(0).isRead());
+        assertFalse(newest.get(1).isRead());
+    }
+
+    @Test
+    void returnedMessagesAreCopies() {
+        seed(cache, CONVERSATION, true, message("m1", 1));
+
+        cache.newest(CONVERSATION, 1).get(0).setContent("changed");
+
+        assertEquals("hello m1", cache.newest(CONVERSATION, 1).get(0).getContent());
+    }
+
+    @Test
+    void seedIsSkippedAfterAWriteToTheSameConversation() {
+        long stamp = cache.stamp(CONVERSATION);
+        cache.append(message("m2", 2));
+
+        cache.seed(CONVERSATION, List.of(message("m1", 1)), true, stamp);
+
+        assertNull(cache.newest(CONVERSATION, 1));
+    }
+
+    @Test
+    void writesToOtherConversationsDoNotBlockASeed() {
+        long stamp = cache.stamp(CONVERSATION);
+        for (int i = 0; i < 100; i++) {
+            cache.append(message("other" + i, "other_" + i, 1));
+        }
+
+        cache.seed(CONVERSATION, List.of(message("m1", 1)), true, stamp);
+
+        assertEquals(List.of("m1"), ids(cache.newest(CONVERSATION, 1)));
+    }
+
+    @Test
+    void evictedWriteStampStillRejectsAStaleSeed() {
+        long stamp = cache.stamp(CONVERSATION);
+        cache.append(message("m2", 2));
+        // Enough other conversations to push every stripe past its bounded stamp map
+        for (int i = 0; i < 50000; i++) {
+            cache.append(message("other" + i, "other_" + i, 1));
+        }
+
+        cache.seed(CONVERSATION, List.of(message("m1", 1)), true, stamp);
+
+        assertNull(cache.newest(CONVERSATION, 1));
+    }
+
+    @Test
+    void bufferPastTheMaxAgeIsDropped() throws InterruptedException {
+        RecentMessageCache expiring = new RecentMessageCache(4, 50000, 0);
+        seed(expiring, CONVERSATION, true, message("m1", 1));
+
+        Thread.sleep(1);
+
+        assertNull(expiring.newest(CONVERSATION, 1));
+    }
+
+    @Test
+    void totalMessagesStayWithinTheConfiguredBound() {
+        // 16 stripes x 2 messages: one two-message conversation per stripe
+        RecentMessageCache small = new RecentMessageCache(2, 32, 600);
+        for (int i = 0; i < 200; i++) {
+            String conversationId = "c_" + i;
+            seed(small, conversationId, true, message("a" + i, conversationId, 1), message("b" + i, conversationId, 2));
+        }
+
+        int cached = 0;
+        for (int i = 0; i < 200; i++) {
+            if (small.newest("c_" + i, 2) != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached > 0 && cached <= 16, "cached " + cached);
+        assertNotNull(small.newest("c_199", 2));
+    }
+
+    private static void seed(RecentMessageCache cache, String conversationId, boolean complete, MessageModel... oldestFirst) {
+        List<MessageModel> newestFirst = new ArrayList<>(List.of(oldestFirst));
+        Collections.reverse(newestFirst);
+        cache.seed(conversationId, newestFirst, complete, cache.stamp(conversationId));
+    }
+
+    private static MessageModel message(String id, int minute) {
+        return message(id, CONVERSATION, minute);
+    }
+
+    private static MessageModel message(String id, String conversationId, int minute) {
+        MessageModel message = new MessageModel(conversationId, "alice", "bob", "hello " + id);
+        message.setId(id);
+        message.setTimestamp(START.plusMinutes(minute));
+        return message;
+    }
+
+    private static List<String> ids(List<MessageModel> messages) {
+        return messages.stream().map(MessageModel::getId).toList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.roommate.manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnreadTotalServiceTest {
+
+    private final UnreadTotalService service = new UnreadTotalService(1000);
+
+    @Test
+    void newerSeqReplacesTheKnownTotal() {
+        assertTrue(service.remember("user", 3, 5));
+        assertTrue(service.remember("user", 4, 6));
+
+        assertEquals(4, service.get("user"));
+    }
+
+    @Test
+    void olderSeqArrivingLateIsIgnored() {
+        service.remember("user", 0, 7); // Read, after the send below
+
+        assertFalse(service.remember("user", 1, 6)); // The send's event, delivered late
+
+        assertEquals(0, service.get("user"));
+    }
+
+    @Test
+    void sameSeqIsAcceptedSoTheProducingInstanceStillPushes() {
+        service.remember("user", 2, 4);
+
+        assertTrue(service.remember("user", 2, 4));
+    }
+
+    @Test
+    void totalsAreKeptPerUser() {
+        service.remember("a", 9, 100);
+
+        assertTrue(service.remember("b", 1, 1));
+        assertEquals(9, service.get("a"));
+        assertEquals(1, service.get("b"));
+    }
+}
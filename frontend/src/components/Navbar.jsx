@@ -11,7 +11,7 @@ import { twMerge } from "tailwind-merge";
 const API_URL = import.meta.env.VITE_API_URL || "http://localhost:8080/api";
 
 // --- 1. Custom Hook for Logic Separation ---
-const useUnreadNotifications = (user, location) => {
+const useUnreadNotifications = (user) => {
   const [totalUnread, setTotalUnread] = useState(0);
 
   const fetchUnreadCount = async () => {
@@ -25,36 +25,16 @@ const useUnreadNotifications = (user, location) => {
     }
   };
 
-  // SSE Logic
+  // SSE Logic: the server pushes the total on connect and on every change
   useChatSSE(user?.id, {
-    onNewMessage: (message) => {
-      if (message.recipientId === user?.id && location.pathname !== '/chat') {
-        setTotalUnread((prev) => prev + 1);
-      }
-    },
-    onMessageRead: () => {
-      if (location.pathname === '/chat') setTotalUnread(0);
-      fetchUnreadCount();
-    }
+    onUnreadTotal: (unread) => setTotalUnread(unread.totalUnread || 0)
   });
 
-  // Polling & Location Logic
+  // Initial count, before the stream connects
   useEffect(() => {
     if (user?.id) fetchUnreadCount();
   }, [user?.id]);
 
-  useEffect(() => {
-    if (location.pathname === '/chat' && user?.id) {
-      setTotalUnread(0);
-      const timer = setTimeout(fetchUnreadCount, 500);
-      const interval = setInterval(fetchUnreadCount, 2000);
-      return () => {
-        clearTimeout(timer);
-        clearInterval(interval);
-      };
-    }
-  }, [location.pathname, user?.id]);
-
   return totalUnread;
 };
 
@@ -116,7 +96,7 @@ const NavItem = ({ item, isActive, isMobile = false }) => {
 function Navbar() {
   const location = useLocation();
   const { user, isLoaded } = useUser();
-  const totalUnread = useUnreadNotifications(user, location);
+  const totalUnread = useUnreadNotifications(user);
 
 
 
@@ -14,12 +14,16 @@ export function useChatSSE(userId, callbacks = {}) {
   const maxReconnectAttempts = 5;
   const baseReconnectDelay = 1000; // 1 second
 
-  const {
-    onNewMessage = () => {},
-    onMessageRead = () => {},
-    onMessageDeleted = () => {},
-    onError = () => {}
-  } = callbacks;
+  // Callbacks are read through a ref so a re-render with new closures doesn't
+  // tear down and reopen the stream
+  const callbacksRef = useRef(callbacks);
+  callbacksRef.current = callbacks;
+
+  const onNewMessage = (message) => callbacksRef.current.onNewMessage?.(message);
+  const onMessageRead = (readReceipt) => callbacksRef.current.onMessageRead?.(readReceipt);
+  const onMessageDeleted = (deletion) => callbacksRef.current.onMessageDeleted?.(deletion);
+  const onUnreadTotal = (unread) => callbacksRef.current.onUnreadTotal?.(unread);
+  const onError = (error) => callbacksRef.current.onError?.(error);
 
   const connect = useCallback(() => {
     if (!userId) {
@@ -83,6 +87,18 @@ export function useChatSSE(userId, callbacks = {}) {
       }
     });
 
+    // Sent on connect and whenever the user's unread total changes
+    eventSource.addEventListener('unread-total', (event) => {
+      try {
+        const unread = JSON.parse(event.data);
+
+        // Call callback
+        onUnreadTotal(unread);
+      } catch (error) {
+        console.error('Failed to parse unread total event:', error);
+      }
+    });
+
     eventSource.onerror = (error) => {
       console.error('❌ Chat SSE error:', error);
 
@@ -111,7 +127,7 @@ export function useChatSSE(userId, callbacks = {}) {
         });
       }
     };
-  }, [userId, onNewMessage, onMessageRead, onError]);
+  }, [userId]);
 
   const disconnect = useCallback(() => {
     console.log('🔌 Disconnecting chat SSE');
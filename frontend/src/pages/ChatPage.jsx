@@ -31,11 +31,17 @@ function ChatPage() {
   const [shouldAutoScroll, setShouldAutoScroll] = useState(true);
   const [deleteConfirmation, setDeleteConfirmation] = useState(null);
   const [searchTerm, setSearchTerm] = useState('');
+  const [olderCursor, setOlderCursor] = useState(null);
+  const [conversationsCursor, setConversationsCursor] = useState(null);
+  const [loadingMoreConversations, setLoadingMoreConversations] = useState(false);
+  const [loadingOlder, setLoadingOlder] = useState(false);
 
   // Refs
   const messagesEndRef = useRef(null);
   const messagesContainerRef = useRef(null);
   const textareaRef = useRef(null);
+  const activeConversationRef = useRef(null);
+  const scrollAnchorRef = useRef(null);
 
   // --- Logic & Hooks ---
   const { isConnected } = useChatSSE(user?.id, {
@@ -93,8 +99,10 @@ function ChatPage() {
           lastMessageTimestamp: null,
           unreadCounts: { [user.id]: 0, [selectedUserId]: 0 }
         };
+        // Not on the loaded page(s) - it may still be an older conversation with history
         setSelectedConversation(conversation);
         setMessages([]);
+        fetchMessages(conversationId);
         fetchUserDetails(selectedUserId);
       }
     }
@@ -103,6 +111,13 @@ function ChatPage() {
   useEffect(() => {
     const container = messagesContainerRef.current;
     if (!container) return;
+    // Older page was prepended: keep the same messages in view instead of jumping
+    if (scrollAnchorRef.current) {
+      const { scrollHeight, scrollTop } = scrollAnchorRef.current;
+      scrollAnchorRef.current = null;
+      container.scrollTo({ top: container.scrollHeight - scrollHeight + scrollTop, behavior: 'instant' });
+      return;
+    }
     const isNearBottom = container.scrollHeight - container.scrollTop - container.clientHeight < 100;
     if (isNearBottom || shouldAutoScroll) {
       messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
@@ -136,6 +151,7 @@ function ChatPage() {
       const data = await res.json();
       if (data.success) {
         setConversations(data.conversations);
+        setConversationsCursor(data.hasMore ? data.before : null);
         data.conversations.forEach(conv => {
           const otherUserId = conv.user1Id === user.id ? conv.user2Id : conv.user1Id;
           fetchUserDetails(otherUserId);
@@ -148,6 +164,29 @@ function ChatPage() {
     }
   };
 
+  // Conversations are paged most recent first - append the next page below the ones shown
+  const loadMoreConversations = async () => {
+    if (!user?.id || !conversationsCursor || loadingMoreConversations) return;
+    setLoadingMoreConversations(true);
+    try {
+      const res = await fetch(`${API_URL}/chat/conversations/${user.id}?before=${encodeURIComponent(conversationsCursor)}`);
+      const data = await res.json();
+      if (data.success) {
+        setConversations((prev) => {
+          const shown = new Set(prev.map((conv) => conv.id));
+          return [...prev, ...data.conversations.filter((conv) => !shown.has(conv.id))];
+        });
+        setConversationsCursor(data.hasMore ? data.before : null);
+        data.conversations.forEach(conv => {
+          const otherUserId = conv.user1Id === user.id ? conv.user2Id : conv.user1Id;
+          fetchUserDetails(otherUserId);
+        });
+      }
+    } catch (error) {
+      toast.error('Failed to load conversations');
+    } finally { setLoadingMoreConversations(false); }
+  };
+
   const fetchUnreadCounts = async () => {
     if (!user?.id) return;
     try {
@@ -169,13 +208,42 @@ function ChatPage() {
   };
 
   const fetchMessages = async (conversationId) => {
+    activeConversationRef.current = conversationId;
+    setOlderCursor(null);
     try {
       const res = await fetch(`${API_URL}/chat/history/${conversationId}`);
       const data = await res.json();
-      if (data.success) setMessages(data.messages);
+      if (data.success && activeConversationRef.current === conversationId) {
+        setMessages(data.messages);
+        setOlderCursor(data.hasMore ? data.before : null);
+      }
     } catch (error) { toast.error('Failed to load messages'); }
   };
 
+  // History is paged newest first - prepend the page before the oldest message shown
+  const loadOlderMessages = async () => {
+    if (!selectedConversation || !olderCursor || loadingOlder) return;
+    const conversationId = selectedConversation.id;
+    setLoadingOlder(true);
+    try {
+      const res = await fetch(`${API_URL}/chat/history/${conversationId}?before=${encodeURIComponent(olderCursor)}`);
+      const data = await res.json();
+      if (data.success && activeConversationRef.current === conversationId) {
+        const container = messagesContainerRef.current;
+        if (container) {
+          scrollAnchorRef.current = { scrollHeight: container.scrollHeight, scrollTop: container.scrollTop };
+        }
+        setMessages((prev) => {
+          const shown = new Set(prev.map((msg) => msg.id));
+          return [...data.messages.filter((msg) => !shown.has(msg.id)), ...prev];
+        });
+        setOlderCursor(data.hasMore ? data.before : null);
+      }
+    } catch (error) {
+      toast.error('Failed to load older messages');
+    } finally { setLoadingOlder(false); }
+  };
+
   const sendMessage = async () => {
     if (!messageInput.trim() || !selectedConversation || sending) return;
     const recipientId = selectedConversation.user1Id === user.id ? selectedConversation.user2Id : selectedConversation.user1Id;
@@ -398,6 +466,17 @@ function ChatPage() {
                 );
               })
             )}
+            {conversationsCursor && (
+              <div className="flex justify-center py-2">
+                <button
+                  onClick={loadMoreConversations}
+                  disabled={loadingMoreConversations}
+                  className="btn btn-ghost btn-xs rounded-full text-base-content/60"
+                >
+                  {loadingMoreConversations ? <Loader2 className="w-3 h-3 animate-spin" /> : 'Load more conversations'}
+                </button>
+              </div>
+            )}
           </div>
         </div>
 
@@ -464,7 +543,19 @@ function ChatPage() {
                     <p>Start a conversation with {getOtherUser(selectedConversation).firstName}!</p>
                   </div>
                 ) : (
-                  messages.map((msg, index) => {
+                  <>
+                  {olderCursor && (
+                    <div className="flex justify-center pb-2">
+                      <button
+                        onClick={loadOlderMessages}
+                        disabled={loadingOlder}
+                        className="btn btn-ghost btn-xs rounded-full text-base-content/60"
+                      >
+                        {loadingOlder ? <Loader2 className="w-3 h-3 animate-spin" /> : 'Load older messages'}
+                      </button>
+                    </div>
+                  )}
+                  {messages.map((msg, index) => {
                     const isSender = msg.senderId === user.id;
                     const isLastOwnMessage = isSender && msg.id === lastOwnMessageId;
                     
@@ -560,7 +651,8 @@ function ChatPage() {
                         </div>
                       </div>
                     );
-                  })
+                  })}
+                  </>
                 )}
                 <div ref={messagesEndRef} />
               </div>